@@ -0,0 +1,339 @@
+package org.nanobot.agent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.bus.MessageBus;
+import org.nanobot.config.DispatchConfig;
+import org.nanobot.config.DispatchConfig.BusyPolicy;
+import org.nanobot.model.Message;
+import org.nanobot.provider.TokenEstimator;
+import org.nanobot.runtime.BlockingSchedulers;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Agent 分发器
+ * 订阅入站消息（经连发合并后），按会话串行调度 AgentLoop，并将回复发布到出站总线
+ * 同一会话已有轮次在执行时，按频道配置的策略排队或取代当前轮次；
+ * 当前轮次已执行有副作用的工具时不再取代（合并后重跑会重复执行这些工具），改为排队
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgentDispatcher {
+
+    private final AgentLoop agentLoop;
+    private final SingleFlightProcessor singleFlightProcessor;
+    private final SessionManager sessionManager;
+    private final ContextBuilder contextBuilder;
+    private final InboundCoalescer inboundCoalescer;
+    private final MessageBus messageBus;
+    private final DispatchConfig dispatchConfig;
+    private final MeterRegistry meterRegistry;
+    private final BlockingSchedulers blockingSchedulers;
+    private final AgentRouter agentRouter;
+
+    private final Map<String, SessionLane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * 停机排空期间到达的消息，不再启动新轮次
+     */
+    private final Queue<Message> parked = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean draining;
+
+    private Disposable subscription;
+
+    /**
+     * 启动入站消息订阅
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = inboundCoalescer.coalesce(messageBus.subscribeInbound())
+                .subscribe(this::dispatch,
+                        e -> log.error("Inbound dispatch stream terminated", e));
+        log.info("Agent dispatcher started");
+
+        resumePendingTurns();
+        replayPendingInbound();
+    }
+
+    /**
+     * 重放上次停机时未处理的入站消息，排在恢复的轮次之后
+     */
+    private void replayPendingInbound() {
+        List<Message> pending = sessionManager.takePendingInbound();
+        if (!pending.isEmpty()) {
+            log.info("Replaying {} inbound messages pending from last shutdown", pending.size());
+            pending.forEach(this::dispatch);
+        }
+    }
+
+    /**
+     * 进入停机排空：之后到达的消息和会话中排队的消息都不再启动新轮次，
+     * 此后被停机中断的轮次保留检查点且不发送回复
+     */
+    public void beginDrain() {
+        draining = true;
+        agentLoop.beginDrain();
+    }
+
+    /**
+     * 获取执行中的轮次数
+     */
+    public int getInFlightTurns() {
+        int count = 0;
+        for (SessionLane lane : lanes.values()) {
+            synchronized (lane) {
+                if (lane.running != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 取出所有未处理的消息（排空期间到达的和会话中排队的），用于持久化
+     *
+     * @return List<Message> 未处理的消息
+     */
+    public List<Message> takePending() {
+        List<Message> pending = new ArrayList<>();
+        for (SessionLane lane : lanes.values()) {
+            synchronized (lane) {
+                pending.addAll(lane.pending);
+                lane.pending.clear();
+            }
+        }
+        Message message;
+        while ((message = parked.poll()) != null) {
+            pending.add(message);
+        }
+        return pending;
+    }
+
+    /**
+     * 恢复上次进程中断时未完成的轮次
+     */
+    private void resumePendingTurns() {
+        for (TurnState state : sessionManager.loadTurnStates()) {
+            // 批量条目由 BatchProcessor 按输出文件恢复，没有可发送回复的频道
+            if (BatchProcessor.CHANNEL.equals(state.getMessage().getChannelType())) {
+                sessionManager.clearTurnState(state);
+                continue;
+            }
+            SessionLane lane = lanes.computeIfAbsent(state.getSessionId(), k -> new SessionLane());
+            synchronized (lane) {
+                if (lane.running == null) {
+                    startTurn(state.getSessionId(), lane, state.getMessage(), agentLoop.resume(state));
+                } else {
+                    log.warn("Session {} already has a running turn, skipping checkpoint {}",
+                            state.getSessionId(), state.getTurnId());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * 分发入站消息
+     *
+     * @param inbound 入站消息
+     */
+    public void dispatch(Message inbound) {
+        Message message = agentRouter.route(inbound);
+        String sessionId = getSessionId(message);
+
+        if (draining) {
+            parked.add(message);
+            log.debug("Draining, parked message {} for session {}", message.getId(), sessionId);
+            return;
+        }
+
+        while (true) {
+            SessionLane lane = lanes.computeIfAbsent(sessionId, k -> new SessionLane());
+            synchronized (lane) {
+                // 已被回收的会话通道，重新获取
+                if (lane.closed) {
+                    continue;
+                }
+
+                if (lane.running == null) {
+                    startTurn(sessionId, lane, message);
+                    return;
+                }
+
+                BusyPolicy policy = dispatchConfig.policyFor(message.getChannelType());
+                if (policy == BusyPolicy.SUPERSEDE && !lane.running.sideEffects.get()) {
+                    supersede(sessionId, lane, message);
+                } else {
+                    if (policy == BusyPolicy.SUPERSEDE) {
+                        log.debug("Running turn of session {} already executed side-effecting tools, queueing instead",
+                                sessionId);
+                        meterRegistry.counter("nanobot.dispatch.supersede.skipped",
+                                "channel", String.valueOf(message.getChannelType())).increment();
+                    }
+                    lane.pending.add(message);
+                    log.debug("Session {} busy, queued message {} ({} pending)",
+                            sessionId, message.getId(), lane.pending.size());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 取消当前轮次，并将新旧消息合并后重新处理
+     */
+    private void supersede(String sessionId, SessionLane lane, Message message) {
+        InFlightTurn stale = lane.running;
+
+        // 先解除关联，避免取消回调推进队列
+        lane.running = null;
+        stale.cancel();
+
+        String channelType = String.valueOf(message.getChannelType());
+        Counter.builder("nanobot.dispatch.turns.superseded")
+                .description("Turns cancelled because a newer message arrived")
+                .tag("channel", channelType)
+                .register(meterRegistry)
+                .increment();
+
+        // 估算节省的 token 需要重新构建上下文（读取磁盘），不占用调用线程和会话锁
+        Message staleMessage = stale.message;
+        Mono.fromCallable(() -> TokenEstimator.estimate(contextBuilder.build(staleMessage)))
+                .subscribeOn(blockingSchedulers.disk())
+                .subscribe(savedTokens -> {
+                    Counter.builder("nanobot.dispatch.tokens.saved")
+                            .description("Estimated prompt tokens not spent on superseded turns")
+                            .tag("channel", channelType)
+                            .register(meterRegistry)
+                            .increment(savedTokens);
+                    log.info("Superseded turn for session {} (message {}), ~{} tokens saved",
+                            sessionId, staleMessage.getId(), savedTokens);
+                }, e -> log.debug("Failed to estimate tokens of superseded turn", e));
+
+        startTurn(sessionId, lane, MessageMerger.merge(stale.message, message));
+    }
+
+    /**
+     * 启动新一轮处理，调用方需持有 lane 锁
+     */
+    private void startTurn(String sessionId, SessionLane lane, Message message) {
+        startTurn(sessionId, lane, message, singleFlightProcessor.process(message));
+    }
+
+    /**
+     * 以指定的处理流程启动一轮，调用方需持有 lane 锁
+     */
+    private void startTurn(String sessionId, SessionLane lane, Message message, Mono<String> work) {
+        InFlightTurn turn = new InFlightTurn(message);
+        lane.running = turn;
+
+        turn.disposable = work
+                .contextWrite(AgentLoop.trackSideEffects(turn.sideEffects))
+                .flatMap(reply -> messageBus.publishOutbound(buildReply(message, reply)))
+                .doFinally(signal -> onTurnFinished(sessionId, lane, turn))
+                .subscribe(null, e -> log.error("Failed to process message {}", message.getId(), e));
+    }
+
+    /**
+     * 轮次结束，继续处理排队消息或回收会话通道
+     */
+    private void onTurnFinished(String sessionId, SessionLane lane, InFlightTurn turn) {
+        synchronized (lane) {
+            if (lane.running != turn) {
+                return;
+            }
+            lane.running = null;
+
+            // 排空期间排队消息留在会话通道中，等待持久化
+            if (draining && !lane.pending.isEmpty()) {
+                return;
+            }
+
+            Message next = lane.pending.poll();
+            if (next != null) {
+                startTurn(sessionId, lane, next);
+            } else {
+                lane.closed = true;
+                lanes.remove(sessionId, lane);
+            }
+        }
+    }
+
+    /**
+     * 构建回复消息
+     */
+    private Message buildReply(Message original, String content) {
+        return Message.builder()
+                .id(UUID.randomUUID().toString())
+                .channelId(original.getChannelId())
+                .channelType(original.getChannelType())
+                .userId(original.getUserId())
+                .content(content)
+                .type(Message.MessageType.TEXT)
+                .metadata(original.getMetadata())
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    /**
+     * 获取会话 ID
+     */
+    private String getSessionId(Message message) {
+        return String.format("%s:%s", message.getChannelType(), message.getUserId());
+    }
+
+    /**
+     * 会话通道：同一会话同时最多一个执行中的轮次
+     */
+    private static class SessionLane {
+        private InFlightTurn running;
+        private final Queue<Message> pending = new ArrayDeque<>();
+        private boolean closed;
+    }
+
+    /**
+     * 执行中的轮次
+     */
+    private static class InFlightTurn {
+        private final Message message;
+        private final AtomicBoolean sideEffects = new AtomicBoolean();
+        private Disposable disposable;
+
+        InFlightTurn(Message message) {
+            this.message = message;
+        }
+
+        void cancel() {
+            if (disposable != null) {
+                disposable.dispose();
+            }
+        }
+    }
+}
@@ -1,24 +1,39 @@
 package org.nanobot.agent;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.nanobot.config.AgentConfig;
+import org.nanobot.config.UsageConfig;
 import org.nanobot.model.ChatMessage;
 import org.nanobot.model.Message;
 import org.nanobot.model.ToolCall;
 import org.nanobot.model.ToolResult;
+import org.nanobot.provider.ChatChunk;
 import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ChatRequestContext;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.provider.TokenEstimator;
 import org.nanobot.provider.registry.ProviderRegistry;
+import org.nanobot.provider.usage.UsageLedger;
+import org.nanobot.runtime.BlockingSchedulers;
 import org.nanobot.tool.Tool;
+import org.nanobot.tool.ToolContext;
 import org.nanobot.tool.ToolExecutor;
 import org.nanobot.tool.ToolRegistry;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Agent 处理循环
@@ -29,15 +44,62 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class AgentLoop {
 
+    /**
+     * 达到最大迭代次数时的回复
+     */
+    public static final String MAX_ITERATIONS_REPLY = "已达到最大迭代次数";
+
+    /**
+     * 处理失败时的回复前缀
+     */
+    public static final String ERROR_REPLY_PREFIX = "处理过程中发生错误: ";
+
+    /**
+     * 子 Agent token 预算耗尽时的回复
+     */
+    public static final String BUDGET_EXHAUSTED_REPLY = "已达到 token 预算，任务未完成";
+
+    /**
+     * 超出每日用量预算时的回复
+     */
+    public static final String BUDGET_EXCEEDED_REPLY = "今日 token 用量已达上限，请明天再试";
+
+    /**
+     * 检测到重复迭代时注入的纠正提示
+     */
+    private static final String LOOP_CORRECTION_PROMPT =
+            "注意：你刚才以相同参数重复调用了工具，结果没有变化。请不要再重复相同的调用，"
+                    + "直接基于已有结果回答用户，或换一种方法。";
+
+    /**
+     * 重复迭代达到上限时注入的停止提示
+     */
+    private static final String LOOP_STOP_PROMPT =
+            "工具调用已多次重复且结果不变，不能再调用工具。请基于以上已有信息直接给出最终回答。";
+
+    /**
+     * Reactor Context 中记录轮次是否已执行有副作用工具的标记
+     */
+    private static final String SIDE_EFFECTS = "nanobot.agent.side-effects";
+
     private final ContextBuilder contextBuilder;
     private final ProviderRegistry providerRegistry;
     private final ToolExecutor toolExecutor;
     private final ToolRegistry toolRegistry;
     private final SessionManager sessionManager;
-    private final AgentConfig agentConfig;
+    private final MeterRegistry meterRegistry;
+    private final BlockingSchedulers blockingSchedulers;
+    private final AgentRouter agentRouter;
+    private final AgentPools agentPools;
+    private final ModelCascade modelCascade;
+    private final ToolSelector toolSelector;
+    private final UsageLedger usageLedger;
+    private final UsageConfig usageConfig;
+
+    // 按模型名路由的 ChatProvider（ProviderRegistry.matchByModel 选择智谱或 OpenAI 兼容实现）
+    private final ChatProvider chatProvider;
 
-    // 注入 ChatProvider（可以是 ZhipuAiChatProvider 或其他实现）
-    private final Optional<ChatProvider> chatProvider;
+    private volatile boolean draining;
 
     /**
      * 处理单次对话
@@ -46,7 +108,7 @@ public class AgentLoop {
      * @return Mono<String> AI 回复
      */
     public Mono<String> process(Message message) {
-        return process(message, agentConfig.getDefaultAgent().getMaxIterations());
+        return process(message, agentRouter.agentFor(message).getMaxIterations());
     }
 
     /**
@@ -57,104 +119,441 @@ public class AgentLoop {
      * @return Mono<String> AI 回复
      */
     public Mono<String> process(Message message, int maxIterations) {
+        // 构建上下文需要读取工作区和会话文件，延迟到磁盘调度器上执行
+        Mono<String> work = Mono.defer(() -> start(message, maxIterations))
+                .subscribeOn(blockingSchedulers.disk());
+        return submit(message, work);
+    }
+
+    private Mono<String> start(Message message, int maxIterations) {
+        // 0. 检查每日用量预算
+        String downgradeModel = null;
+        UsageConfig.BudgetAction budgetAction = usageLedger.checkBudget(getSessionId(message), message.getUserId());
+        if (budgetAction == UsageConfig.BudgetAction.BLOCK) {
+            log.warn("Daily token budget exceeded for session {}, rejecting turn", getSessionId(message));
+            return Mono.just(BUDGET_EXCEEDED_REPLY);
+        }
+        if (budgetAction == UsageConfig.BudgetAction.DOWNGRADE) {
+            downgradeModel = usageConfig.getBudget().getDowngradeModel();
+            log.info("Daily token budget exceeded for session {}, downgrading to {}", getSessionId(message), downgradeModel);
+        }
+
         // 1. 构建上下文
         List<ChatMessage> context = contextBuilder.build(message);
 
         // 2. 获取 Provider
-        String model = agentConfig.getDefaultAgent().getModel();
+        String model = downgradeModel != null ? downgradeModel : agentRouter.agentFor(message).getModel();
         var providerSpec = providerRegistry.matchByModel(model);
 
-        log.info("Processing message with model: {}, provider: {}", model, providerSpec.getName());
+        log.info("Processing message with agent: {}, model: {}, provider: {}",
+                agentRouter.agentName(message), model, providerSpec.getName());
 
         // 3. 执行处理循环
-        return processLoop(context, maxIterations, 0, message);
+        TurnState state = TurnState.builder()
+                .turnId(message.getId() != null ? message.getId() : UUID.randomUUID().toString())
+                .sessionId(getSessionId(message))
+                .message(message)
+                .phase(TurnState.Phase.CALL_LLM)
+                .maxIterations(maxIterations)
+                .model(downgradeModel)
+                .messages(new ArrayList<>(context))
+                .build();
+        return run(state);
+    }
+
+    /**
+     * 从检查点恢复未完成的轮次
+     *
+     * @param state 检查点中的轮次状态
+     * @return Mono<String> AI 回复
+     */
+    public Mono<String> resume(TurnState state) {
+        log.info("Resuming turn {} for session {} at iteration {} ({})",
+                state.getTurnId(), state.getSessionId(), state.getIteration(), state.getPhase());
+        return submit(state.getMessage(), run(state));
+    }
+
+    /**
+     * 在消息所属 Agent 的资源池中执行，队列已满时直接回复错误
+     */
+    private Mono<String> submit(Message message, Mono<String> work) {
+        return agentPools.submit(agentRouter.agentName(message), work)
+                .onErrorResume(RejectedExecutionException.class, e -> {
+                    log.warn("Rejected message {}: {}", message.getId(), e.getMessage());
+                    return Mono.just(ERROR_REPLY_PREFIX + e.getMessage());
+                });
+    }
+
+    /**
+     * 进入停机排空：之后因错误结束的轮次视为被停机中断，保留检查点、不产生回复，下次启动时恢复
+     */
+    public void beginDrain() {
+        draining = true;
+    }
+
+    /**
+     * 以隔离上下文运行子 Agent
+     * 不加载会话历史、不写检查点、不保存会话历史，也不占用所属 Agent 的资源池名额（由调用方限流）
+     *
+     * @param parent        父 Agent 正在处理的消息
+     * @param task          子任务描述
+     * @param maxIterations 最大迭代次数
+     * @param tokenBudget   与同批子 Agent 共享的剩余 token 预算
+     * @param excludedTools 不提供给子 Agent 的工具
+     * @return Mono<String> 子任务结果
+     */
+    public Mono<String> runSubagent(Message parent, String task, int maxIterations,
+                                    AtomicLong tokenBudget, List<String> excludedTools) {
+        Message message = Message.builder()
+                .id(UUID.randomUUID().toString())
+                .channelId(parent.getChannelId())
+                .channelType(parent.getChannelType())
+                .userId(parent.getUserId())
+                .content(task)
+                .type(Message.MessageType.TEXT)
+                .metadata(parent.getMetadata())
+                .timestamp(parent.getTimestamp())
+                .build();
+
+        return Mono.defer(() -> {
+            TurnState state = TurnState.builder()
+                    .turnId(message.getId())
+                    .sessionId(getSessionId(message))
+                    .message(message)
+                    .phase(TurnState.Phase.CALL_LLM)
+                    .maxIterations(maxIterations)
+                    .messages(new ArrayList<>(contextBuilder.buildSubtask(message)))
+                    .subagent(true)
+                    .excludedTools(excludedTools)
+                    .tokenBudget(tokenBudget)
+                    .build();
+            return run(state);
+        }).subscribeOn(blockingSchedulers.disk());
+    }
+
+    /**
+     * 驱动状态机直到轮次结束
+     * 每一步推进后写入检查点；以 repeat 迭代代替递归，避免响应式调用链随迭代加深。
+     * 轮次完成（含失败回复）或被取消（如被新消息取代）时删除检查点；被停机中断时保留检查点且不回复
+     */
+    private Mono<String> run(TurnState state) {
+        CycleDetector cycleDetector = new CycleDetector(toolRegistry::getTool);
+        AgentConfig.DefaultAgentConfig agent = agentRouter.agentFor(state.getMessage());
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        return Mono.defer(() -> step(state, cycleDetector))
+                .repeat(() -> !state.isDone())
+                .then(Mono.fromCallable(state::getFinalResponse))
+                .publishOn(blockingSchedulers.disk())
+                .onErrorResume(e -> {
+                    if (!state.isSubagent() && isShutdownError(e)) {
+                        interrupted.set(true);
+                        log.warn("Turn {} interrupted by shutdown at iteration {}, keeping checkpoint: {}",
+                                state.getTurnId(), state.getIteration(), e.toString());
+                        return Mono.empty();
+                    }
+                    log.error("Error in process loop at iteration {}", state.getIteration(), e);
+                    return Mono.just(ERROR_REPLY_PREFIX + e.getMessage());
+                })
+                .doFinally(signal -> {
+                    if (isCheckpointed(state) && !interrupted.get()) {
+                        sessionManager.clearTurnState(state);
+                    }
+                })
+                .contextWrite(ToolContext.of(state.getMessage(), agent.getWorkspace()))
+                .contextWrite(buildRequestContext(state.getMessage()).asContext());
+    }
+
+    /**
+     * 停机排空开始后的错误，或调度器已关闭导致的拒绝执行，都视为停机中断
+     */
+    private boolean isShutdownError(Throwable e) {
+        if (draining) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedExecutionException) {
+                return blockingSchedulers.isDisposed();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 推进一步
+     */
+    private Mono<Void> step(TurnState state, CycleDetector cycleDetector) {
+        Mono<Void> action = switch (state.getPhase()) {
+            case CALL_LLM -> callModel(state);
+            case EXECUTE_TOOLS -> executeTools(state, cycleDetector);
+            case FORCE_ANSWER -> forceAnswer(state);
+            case DONE -> Mono.empty();
+        };
+        return action.doOnSuccess(v -> {
+            if (!state.isDone() && isCheckpointed(state)) {
+                sessionManager.saveTurnState(state);
+            }
+        });
+    }
+
+    /**
+     * 是否写检查点：子 Agent 随父轮次恢复，批量条目以输出文件为检查点，都不单独写入
+     */
+    private boolean isCheckpointed(TurnState state) {
+        return !state.isSubagent() && !BatchProcessor.CHANNEL.equals(state.getMessage().getChannelType());
     }
 
     /**
-     * 处理循环（支持工具调用迭代）
+     * 调用模型：返回工具调用则进入工具执行阶段，否则结束
      */
-    private Mono<String> processLoop(
-            List<ChatMessage> messages,
-            int maxIterations,
-            int iteration,
-            Message originalMessage
-    ) {
-        if (iteration >= maxIterations) {
-            log.warn("Reached maximum iterations: {}", maxIterations);
-            return Mono.just("已达到最大迭代次数");
+    private Mono<Void> callModel(TurnState state) {
+        if (state.getIteration() >= state.getMaxIterations()) {
+            log.warn("Reached maximum iterations: {}", state.getMaxIterations());
+            state.setFinalResponse(MAX_ITERATIONS_REPLY);
+            state.setPhase(TurnState.Phase.DONE);
+            return Mono.empty();
         }
 
-        log.debug("Iteration {}/{}", iteration + 1, maxIterations);
+        log.debug("Iteration {}/{}", state.getIteration() + 1, state.getMaxIterations());
 
-        // 调用 LLM
-        return callLLM(messages)
-                .flatMap(response -> {
+        if (!reserveTokens(state)) {
+            log.warn("Subagent turn {} ran out of token budget at iteration {}", state.getTurnId(), state.getIteration());
+            state.setFinalResponse(BUDGET_EXHAUSTED_REPLY);
+            state.setPhase(TurnState.Phase.DONE);
+            return Mono.empty();
+        }
+
+        List<Tool> tools = availableTools(state);
+        return callModelWithCascade(state, tools)
+                .flatMap(response -> fallbackToFullToolset(state, tools, response))
+                // 流式响应在 Netty 事件循环上结束，写检查点和会话历史前切换到磁盘调度器
+                .publishOn(blockingSchedulers.disk())
+                .doOnNext(response -> {
                     if (response.hasToolCalls()) {
-                        // 有工具调用，执行工具并继续
                         log.info("LLM returned {} tool calls", response.getToolCalls().size());
-                        return executeToolsAndContinue(messages, response,
-                                maxIterations, iteration + 1, originalMessage);
+                        // 添加助手消息（包含工具调用）
+                        state.getMessages().add(ChatMessage.assistant(response.getContent(), response.getToolCalls()));
+                        state.setPendingToolCalls(response.getToolCalls());
+                        state.setIteration(state.getIteration() + 1);
+                        state.setPhase(TurnState.Phase.EXECUTE_TOOLS);
                     } else {
-                        // 最终回复
-                        log.info("LLM returned final response");
-
-                        // 保存对话历史
-                        saveHistory(originalMessage, messages, response.getContent());
-
-                        return Mono.just(response.getContent());
+                        finish(state, response);
                     }
                 })
-                .onErrorResume(e -> {
-                    log.error("Error in process loop at iteration {}", iteration, e);
-                    return Mono.just("处理过程中发生错误: " + e.getMessage());
-                });
+                .then();
     }
 
     /**
-     * 执行工具并继续循环
+     * 轮次首次调用先经过模型级联，工具结果返回后的后续迭代直接使用主模型
      */
-    private Mono<String> executeToolsAndContinue(
-            List<ChatMessage> messages,
-            ChatProvider.ChatResponse response,
-            int maxIterations,
-            int nextIteration,
-            Message originalMessage
-    ) {
-        // 添加助手消息（包含工具调用）
-        messages.add(ChatMessage.assistant(response.getContent(), response.getToolCalls()));
+    private Mono<ChatProvider.ChatResponse> callModelWithCascade(TurnState state, List<Tool> tools) {
+        if (state.getIteration() > 0 || state.getModel() != null) {
+            return callLLM(state, tools);
+        }
+        AgentConfig.DefaultAgentConfig agent = agentRouter.agentFor(state.getMessage());
+        return modelCascade.call(agent.getCascade(), state.getMessage().getContent(), state.getMessages(),
+                () -> callLLM(state, tools));
+    }
 
-        // 并行执行所有工具调用
-        List<Mono<ToolResult>> toolResults = response.getToolCalls().stream()
-                .map(toolCall -> toolExecutor.execute(toolCall)
-                        .onErrorResume(e -> Mono.just(ToolResult.error(toolCall.getId(), e)))
-                )
+    /**
+     * 模型请求了本次未提供的工具时，改为提供全部工具重新调用
+     */
+    private Mono<ChatProvider.ChatResponse> fallbackToFullToolset(TurnState state, List<Tool> offered,
+                                                                  ChatProvider.ChatResponse response) {
+        if (!response.hasToolCalls() || state.isFullToolset()) {
+            return Mono.just(response);
+        }
+        boolean unknown = response.getToolCalls().stream()
+                .anyMatch(call -> offered.stream().noneMatch(tool -> tool.getName().equals(call.getFunctionName())));
+        if (!unknown) {
+            return Mono.just(response);
+        }
+
+        log.info("Model requested a tool outside the selected subset, retrying with all tools");
+        meterRegistry.counter("nanobot.agent.tools.selection_fallback").increment();
+        state.setFullToolset(true);
+        return callLLM(state, availableTools(state));
+    }
+
+    /**
+     * 本轮可用的工具
+     */
+    private List<Tool> availableTools(TurnState state) {
+        List<Tool> tools = state.isFullToolset()
+                ? toolRegistry.getAllTools()
+                : toolSelector.select(state.getSessionId(), state.getMessage().getContent(), toolRegistry.getAllTools());
+        if (state.getExcludedTools() == null || state.getExcludedTools().isEmpty()) {
+            return tools;
+        }
+        return tools.stream()
+                .filter(tool -> !state.getExcludedTools().contains(tool.getName()))
+                .toList();
+    }
+
+    /**
+     * 从预算中扣除本次调用的估算 token，预算不足时返回 false
+     */
+    private boolean reserveTokens(TurnState state) {
+        AtomicLong budget = state.getTokenBudget();
+        if (budget == null) {
+            return true;
+        }
+        long estimate = TokenEstimator.estimate(state.getMessages());
+        return budget.addAndGet(-estimate) >= 0;
+    }
+
+    /**
+     * 执行待处理的工具调用并做循环检测
+     */
+    private Mono<Void> executeTools(TurnState state, CycleDetector cycleDetector) {
+        List<ToolCall> toolCalls = state.getPendingToolCalls();
+
+        // 并行执行所有工具调用，本轮已执行过的无副作用调用直接复用结果
+        List<Mono<ToolResult>> toolResults = toolCalls.stream()
+                .map(toolCall -> {
+                    ToolResult memoized = cycleDetector.recall(toolCall);
+                    if (memoized != null) {
+                        log.info("Reusing result of repeated tool call: {}", toolCall.getFunctionName());
+                        meterRegistry.counter("nanobot.agent.loop.tool_calls.reused").increment();
+                        return Mono.just(memoized);
+                    }
+                    return Mono.deferContextual(ctx -> {
+                                markSideEffects(ctx, toolCall);
+                                return toolExecutor.execute(toolCall);
+                            })
+                            .onErrorResume(e -> Mono.just(ToolResult.error(toolCall.getId(), e)))
+                            .doOnNext(result -> cycleDetector.remember(toolCall, result));
+                })
                 .toList();
 
         return Flux.merge(toolResults)
                 .collectList()
-                .flatMap(results -> {
+                .publishOn(blockingSchedulers.disk())
+                .doOnNext(results -> {
                     // 添加工具结果消息
                     for (ToolResult result : results) {
-                        messages.add(result.toMessage());
+                        state.getMessages().add(result.toMessage());
                     }
+                    state.setPendingToolCalls(null);
+                    state.setPhase(TurnState.Phase.CALL_LLM);
+                    toolSelector.remember(state.getSessionId(),
+                            toolCalls.stream().map(ToolCall::getFunctionName).toList());
 
-                    // 继续下一轮
-                    return processLoop(messages, maxIterations, nextIteration, originalMessage);
-                });
+                    // 循环检测
+                    AgentConfig.DefaultAgentConfig agent = agentRouter.agentFor(state.getMessage());
+                    int repeats = cycleDetector.recordIteration(toolCalls, results);
+                    if (repeats >= agent.getLoopStopRepeats()) {
+                        state.setPhase(TurnState.Phase.FORCE_ANSWER);
+                    } else if (repeats >= agent.getLoopWarnRepeats()) {
+                        log.info("Detected repeated iteration ({} times), injecting correction", repeats);
+                        meterRegistry.counter("nanobot.agent.loop.cycles", "action", "warn").increment();
+                        state.getMessages().add(ChatMessage.system(LOOP_CORRECTION_PROMPT));
+                    }
+                })
+                .then();
     }
 
     /**
-     * 调用 LLM
+     * 即将执行有副作用的工具时置位调用方提供的标记
      */
-    private Mono<ChatProvider.ChatResponse> callLLM(List<ChatMessage> messages) {
-        // 使用注入的 ChatProvider
-        if (chatProvider.isPresent()) {
-            return chatProvider.get().chat(messages, toolRegistry.getAllTools());
+    private void markSideEffects(ContextView ctx, ToolCall toolCall) {
+        AtomicBoolean flag = ctx.getOrDefault(SIDE_EFFECTS, null);
+        if (flag == null || flag.get()) {
+            return;
         }
+        Tool tool = toolRegistry.getTool(toolCall.getFunctionName());
+        if (tool != null && tool.hasSideEffects()) {
+            flag.set(true);
+        }
+    }
 
-        // 如果没有注入 ChatProvider，返回错误
-        return Mono.error(new IllegalStateException("No ChatProvider available. " +
-                "Please ensure ZhipuAiChatProvider is properly configured."));
+    /**
+     * 跟踪轮次是否已执行有副作用的工具（写文件、执行命令、发送消息等）
+     * 写入处理流程的 Context 后，轮次开始执行此类工具前将 flag 置为 true
+     *
+     * @param flag 由调用方持有的标记
+     * @return Context
+     */
+    public static Context trackSideEffects(AtomicBoolean flag) {
+        return Context.of(SIDE_EFFECTS, flag);
+    }
+
+    /**
+     * 重复迭代达到上限：不再提供工具，要求模型基于已有结果直接作答
+     */
+    private Mono<Void> forceAnswer(TurnState state) {
+        if (state.getIteration() >= state.getMaxIterations()) {
+            state.setFinalResponse(MAX_ITERATIONS_REPLY);
+            state.setPhase(TurnState.Phase.DONE);
+            return Mono.empty();
+        }
+
+        int saved = state.getMaxIterations() - state.getIteration() - 1;
+        log.warn("Stopping repeated tool loop at iteration {}, ~{} iterations saved", state.getIteration(), saved);
+        meterRegistry.counter("nanobot.agent.loop.cycles", "action", "stop").increment();
+        meterRegistry.counter("nanobot.agent.loop.iterations.saved").increment(saved);
+
+        state.getMessages().add(ChatMessage.system(LOOP_STOP_PROMPT));
+        return callLLM(state, List.of())
+                .publishOn(blockingSchedulers.disk())
+                .doOnNext(response -> finish(state, response))
+                .then();
+    }
+
+    /**
+     * 最终回复：保存对话历史并结束轮次
+     */
+    private void finish(TurnState state, ChatProvider.ChatResponse response) {
+        log.info("LLM returned final response");
+
+        // 保存对话历史
+        if (!state.isSubagent()) {
+            saveHistory(state.getMessage(), state.getMessages(), response.getContent());
+        }
+
+        state.setFinalResponse(response.getContent());
+        state.setPhase(TurnState.Phase.DONE);
+    }
+
+    /**
+     * 调用 LLM
+     */
+    private Mono<ChatProvider.ChatResponse> callLLM(TurnState state, List<Tool> tools) {
+        // 由 Agent 配置的模型决定实际调用的 Provider
+        AgentConfig.DefaultAgentConfig agent = agentRouter.agentFor(state.getMessage());
+        String model = state.getModel() != null ? state.getModel() : agent.getModel();
+        ModelOptions options = ModelOptions.of(model, agent.getTemperature());
+        // 流式接收并聚合，记录首个数据块的等待时间；轮次被取消时立即断开上游流
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            return ChatChunk.collect(chatProvider.stream(state.getMessages(), tools, options)
+                    .doOnNext(chunk -> {
+                        if (first.compareAndSet(true, false)) {
+                            meterRegistry.timer("nanobot.agent.llm.first_chunk")
+                                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    }));
+        });
+    }
+
+    /**
+     * 将共享的回复记录到消息所属会话
+     * 用于未实际执行循环、复用其他请求结果的消息
+     *
+     * @param message 用户消息
+     * @param reply   回复内容
+     */
+    public void recordTurn(Message message, String reply) {
+        saveHistory(message, List.of(), reply);
+    }
+
+    /**
+     * 判断回复是否为失败回复（不应被缓存或共享）
+     */
+    public static boolean isFailureReply(String reply) {
+        return reply == null || MAX_ITERATIONS_REPLY.equals(reply) || BUDGET_EXCEEDED_REPLY.equals(reply)
+                || reply.startsWith(ERROR_REPLY_PREFIX);
     }
 
     /**
@@ -162,14 +561,29 @@ public class AgentLoop {
      */
     private void saveHistory(Message originalMessage, List<ChatMessage> messages, String finalResponse) {
         String sessionId = getSessionId(originalMessage);
+        String agent = agentRouter.agentName(originalMessage);
 
         // 保存用户消息
         ChatMessage userMsg = ChatMessage.user(originalMessage.getContent());
-        sessionManager.appendMessage(sessionId, userMsg);
+        sessionManager.appendMessage(agent, sessionId, userMsg);
 
         // 保存助手回复
         ChatMessage assistantMsg = ChatMessage.assistant(finalResponse);
-        sessionManager.appendMessage(sessionId, assistantMsg);
+        sessionManager.appendMessage(agent, sessionId, assistantMsg);
+    }
+
+    /**
+     * 构建模型调用的请求上下文
+     */
+    private ChatRequestContext buildRequestContext(Message message) {
+        return ChatRequestContext.builder()
+                .caller(message.getChannelType())
+                .sessionId(getSessionId(message))
+                .userId(message.getUserId())
+                .channelType(message.getChannelType())
+                .agent(agentRouter.agentName(message))
+                .priority(ChatRequestContext.Priority.fromCaller(message.getChannelType()))
+                .build();
     }
 
     /**
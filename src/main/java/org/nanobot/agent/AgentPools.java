@@ -0,0 +1,220 @@
+package org.nanobot.agent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.AgentConfig;
+import org.nanobot.config.AgentConfig.DefaultAgentConfig;
+import org.nanobot.config.ToolsConfig;
+import org.nanobot.config.ToolsConfig.SubagentConfig;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agent 资源池
+ * 每个命名 Agent 拥有独立的并发上限和等待队列，慢 Agent 排队不会占用其他 Agent 的执行名额；
+ * 子 Agent 使用单独的全局资源池，容量取 nanobot.tools.subagents 配置
+ */
+@Slf4j
+@Component
+public class AgentPools {
+
+    /**
+     * 子 Agent 资源池名称（指标标签）
+     */
+    private static final String SUBAGENTS = "subagents";
+
+    private final AgentConfig agentConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final Pool subagents;
+
+    public AgentPools(AgentConfig agentConfig, ToolsConfig toolsConfig, MeterRegistry meterRegistry) {
+        this.agentConfig = agentConfig;
+        this.meterRegistry = meterRegistry;
+        SubagentConfig config = toolsConfig.getSubagents();
+        this.subagents = new Pool(SUBAGENTS, config.getMaxConcurrency(), config.getMaxQueued());
+    }
+
+    /**
+     * 在指定 Agent 的资源池中执行
+     * 有空闲名额时立即订阅，否则排队；队列已满时返回 RejectedExecutionException
+     *
+     * @param agent Agent 名称
+     * @param work  待执行的处理流程
+     * @return Mono<T> 处理结果
+     */
+    public <T> Mono<T> submit(String agent, Mono<T> work) {
+        Pool pool = pools.computeIfAbsent(agent, this::createPool);
+        return Mono.create(sink -> pool.enqueue(new Task<>(work, sink)));
+    }
+
+    /**
+     * 在全局子 Agent 资源池中执行
+     * 有空闲名额时立即订阅，否则排队；队列已满时返回 RejectedExecutionException
+     *
+     * @param work 待执行的子 Agent
+     * @return Mono<T> 处理结果
+     */
+    public <T> Mono<T> submitSubagent(Mono<T> work) {
+        return Mono.create(sink -> subagents.enqueue(new Task<>(work, sink)));
+    }
+
+    private Pool createPool(String agent) {
+        DefaultAgentConfig config = agentConfig.getAgent(agent);
+        log.info("Creating pool for agent {} (concurrency {}, queue {})",
+                agent, config.getMaxConcurrency(), config.getMaxQueued());
+        return new Pool(agent, config.getMaxConcurrency(), config.getMaxQueued());
+    }
+
+    /**
+     * 单个 Agent 的资源池
+     */
+    private class Pool {
+        private final String agent;
+        private final int maxConcurrency;
+        private final int maxQueued;
+        private final Queue<Task<?>> waiting = new ArrayDeque<>();
+        private int active;
+
+        private final Timer queueWait;
+        private final Timer latency;
+        private final Counter rejected;
+
+        Pool(String agent, int maxConcurrency, int maxQueued) {
+            this.agent = agent;
+            this.maxConcurrency = maxConcurrency;
+            this.maxQueued = maxQueued;
+
+            this.queueWait = Timer.builder("nanobot.agent.queue.wait")
+                    .description("Time turns spend waiting for an agent slot")
+                    .tag("agent", agent)
+                    .register(meterRegistry);
+            this.latency = Timer.builder("nanobot.agent.turn.latency")
+                    .description("Turn execution time, excluding queue wait")
+                    .tag("agent", agent)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("nanobot.agent.rejected")
+                    .description("Turns rejected because the agent queue was full")
+                    .tag("agent", agent)
+                    .register(meterRegistry);
+            Gauge.builder("nanobot.agent.active", this, pool -> pool.snapshot(false))
+                    .tag("agent", agent)
+                    .register(meterRegistry);
+            Gauge.builder("nanobot.agent.queued", this, pool -> pool.snapshot(true))
+                    .tag("agent", agent)
+                    .register(meterRegistry);
+        }
+
+        void enqueue(Task<?> task) {
+            boolean startNow;
+            synchronized (this) {
+                startNow = active < maxConcurrency;
+                if (startNow) {
+                    active++;
+                } else if (waiting.size() >= maxQueued) {
+                    rejected.increment();
+                    task.sink.error(new RejectedExecutionException(
+                            "Agent " + agent + " is busy, " + waiting.size() + " turns queued"));
+                    return;
+                } else {
+                    waiting.add(task);
+                }
+            }
+
+            task.sink.onCancel(() -> cancel(task));
+            if (startNow) {
+                start(task);
+            }
+        }
+
+        void start(Task<?> task) {
+            queueWait.record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+            if (!task.start(this::release, latency)) {
+                // 排队期间已取消
+                release();
+            }
+        }
+
+        void cancel(Task<?> task) {
+            synchronized (this) {
+                if (waiting.remove(task)) {
+                    return;
+                }
+            }
+            task.cancel();
+        }
+
+        void release() {
+            Task<?> next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    active--;
+                }
+            }
+            if (next != null) {
+                start(next);
+            }
+        }
+
+        synchronized double snapshot(boolean queued) {
+            return queued ? waiting.size() : active;
+        }
+    }
+
+    /**
+     * 池中的一个任务
+     */
+    private static class Task<T> {
+        private final Mono<T> work;
+        private final MonoSink<T> sink;
+        private final long enqueuedAt = System.nanoTime();
+        private Disposable running;
+        private boolean cancelled;
+
+        Task(Mono<T> work, MonoSink<T> sink) {
+            this.work = work;
+            this.sink = sink;
+        }
+
+        /**
+         * 开始执行，结束时回调 onRelease
+         *
+         * @return boolean 已取消的任务返回 false
+         */
+        synchronized boolean start(Runnable onRelease, Timer latency) {
+            if (cancelled) {
+                return false;
+            }
+            long startedAt = System.nanoTime();
+            running = work
+                    .contextWrite(sink.contextView())
+                    .doFinally(signal -> {
+                        latency.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                        onRelease.run();
+                    })
+                    .subscribe(sink::success, sink::error, sink::success);
+            return true;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (running != null) {
+                running.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.nanobot.agent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.AgentConfig;
+import org.nanobot.config.AgentConfig.DefaultAgentConfig;
+import org.nanobot.config.AgentConfig.RouteRule;
+import org.nanobot.model.Message;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Agent 路由器
+ * 按频道类型、会话ID或前缀命令为消息选择命名 Agent，结果记录在消息元数据中，
+ * 后续上下文构建、模型调用、检查点恢复都按该名称取对应 Agent 的配置
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgentRouter {
+
+    /**
+     * 消息元数据中的 Agent 名称
+     */
+    public static final String AGENT = "agent";
+
+    private final AgentConfig agentConfig;
+
+    /**
+     * 为消息选择 Agent
+     * 已路由的消息原样返回；命中前缀命令时去除前缀
+     *
+     * @param message 入站消息
+     * @return Message 带 Agent 名称的消息
+     */
+    public Message route(Message message) {
+        if (message.getMetadata() != null && message.getMetadata().get(AGENT) != null) {
+            return message;
+        }
+
+        RouteRule rule = match(message);
+        String agent = rule != null ? rule.getAgent() : AgentConfig.DEFAULT_AGENT;
+        if (!isKnown(agent)) {
+            log.warn("Route targets unknown agent {}, using default agent", agent);
+            agent = AgentConfig.DEFAULT_AGENT;
+        }
+
+        String content = message.getContent();
+        if (rule != null && rule.getPrefix() != null) {
+            content = content.trim().substring(rule.getPrefix().length()).trim();
+        }
+
+        Map<String, Object> metadata = message.getMetadata() != null
+                ? new HashMap<>(message.getMetadata())
+                : new HashMap<>();
+        metadata.put(AGENT, agent);
+
+        log.debug("Routed message {} to agent {}", message.getId(), agent);
+        return Message.builder()
+                .id(message.getId())
+                .channelId(message.getChannelId())
+                .channelType(message.getChannelType())
+                .userId(message.getUserId())
+                .userName(message.getUserName())
+                .content(content)
+                .type(message.getType())
+                .metadata(metadata)
+                .timestamp(message.getTimestamp())
+                .build();
+    }
+
+    /**
+     * 获取消息所属 Agent 名称
+     *
+     * @param message 消息
+     * @return String Agent 名称
+     */
+    public String agentName(Message message) {
+        if (message.getMetadata() != null && message.getMetadata().get(AGENT) != null) {
+            return String.valueOf(message.getMetadata().get(AGENT));
+        }
+        RouteRule rule = match(message);
+        return rule != null && isKnown(rule.getAgent()) ? rule.getAgent() : AgentConfig.DEFAULT_AGENT;
+    }
+
+    /**
+     * 获取消息所属 Agent 的配置
+     *
+     * @param message 消息
+     * @return DefaultAgentConfig
+     */
+    public DefaultAgentConfig agentFor(Message message) {
+        return agentConfig.getAgent(agentName(message));
+    }
+
+    /**
+     * 按顺序查找第一条匹配的路由规则
+     */
+    private RouteRule match(Message message) {
+        for (RouteRule rule : agentConfig.getRoutes()) {
+            if (matches(rule, message)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(RouteRule rule, Message message) {
+        if (rule.getChannelType() != null && !rule.getChannelType().equals(message.getChannelType())) {
+            return false;
+        }
+        if (rule.getChatId() != null && !rule.getChatId().equals(getChatId(message))) {
+            return false;
+        }
+        if (rule.getPrefix() != null) {
+            String content = message.getContent() == null ? "" : message.getContent().trim();
+            if (!content.startsWith(rule.getPrefix())) {
+                return false;
+            }
+            // 前缀需是完整命令，/code 不匹配 /codex
+            return content.length() == rule.getPrefix().length()
+                    || Character.isWhitespace(content.charAt(rule.getPrefix().length()));
+        }
+        return true;
+    }
+
+    private boolean isKnown(String agent) {
+        return AgentConfig.DEFAULT_AGENT.equals(agent) || agentConfig.getAgents().containsKey(agent);
+    }
+
+    /**
+     * 获取会话ID：优先使用元数据中的 chat_id，否则使用频道ID
+     */
+    private String getChatId(Message message) {
+        if (message.getMetadata() != null && message.getMetadata().get("chat_id") != null) {
+            return String.valueOf(message.getMetadata().get("chat_id"));
+        }
+        return message.getChannelId();
+    }
+}
@@ -0,0 +1,62 @@
+package org.nanobot.agent;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 批量任务状态
+ * 持久化为任务目录下的 job.json；已完成条目以输出文件为准，重启后据此跳过
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJob {
+
+    /**
+     * 任务ID
+     */
+    private String id;
+
+    /**
+     * 任务状态
+     */
+    private State state;
+
+    /**
+     * 输入条目总数
+     */
+    private int total;
+
+    /**
+     * 已完成条目数（含失败）
+     */
+    private int completed;
+
+    /**
+     * 失败条目数
+     */
+    private int failed;
+
+    /**
+     * 任务失败原因
+     */
+    private String error;
+
+    private Instant createdAt;
+
+    private Instant finishedAt;
+
+    /**
+     * 任务状态枚举
+     */
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,446 @@
+package org.nanobot.agent;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.AgentConfig;
+import org.nanobot.config.BatchConfig;
+import org.nanobot.model.Message;
+import org.nanobot.runtime.BlockingSchedulers;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 批量处理
+ * JSONL 输入的每一行是一条提示词：{"id": "...", "content": "...", "agent": "..."}，id 缺省为行号，
+ * 重复的 id 只处理第一次出现的条目。
+ * 条目以 batch 频道（BATCH 优先级，限流时让位于交互消息）逐条交给 AgentLoop，每个条目使用独立会话，
+ * 完成后清除会话历史；同一任务的并发条目数受 nanobot.batch.concurrency 限制。
+ * <p>
+ * 结果逐条追加到 output.jsonl 并立即刷盘，输出文件即检查点：进程重启后跳过输出中已有的条目继续处理
+ */
+@Slf4j
+@Component
+public class BatchProcessor {
+
+    /**
+     * 批量条目使用的频道类型
+     */
+    public static final String CHANNEL = "batch";
+
+    private static final String INPUT_FILE = "input.jsonl";
+    private static final String OUTPUT_FILE = "output.jsonl";
+    private static final String JOB_FILE = "job.json";
+    private static final Pattern JOB_ID = Pattern.compile("[0-9a-f-]{36}");
+
+    private final BatchConfig config;
+    private final AgentLoop agentLoop;
+    private final AgentRouter agentRouter;
+    private final SessionManager sessionManager;
+    private final BlockingSchedulers blockingSchedulers;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final Path workspace;
+    private final Path batchDir;
+
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    public BatchProcessor(BatchConfig config,
+                          AgentConfig agentConfig,
+                          AgentLoop agentLoop,
+                          AgentRouter agentRouter,
+                          SessionManager sessionManager,
+                          BlockingSchedulers blockingSchedulers,
+                          MeterRegistry meterRegistry) {
+        this.config = config;
+        this.agentLoop = agentLoop;
+        this.agentRouter = agentRouter;
+        this.sessionManager = sessionManager;
+        this.blockingSchedulers = blockingSchedulers;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.workspace = Paths.get(agentConfig.getDefaultAgent().getWorkspace()).toAbsolutePath().normalize();
+        this.batchDir = config.getDirectory() != null && !config.getDirectory().isBlank()
+                ? Paths.get(config.getDirectory())
+                : workspace.resolve("batch");
+    }
+
+    /**
+     * 提交上传的 JSONL 内容
+     *
+     * @param jsonl JSONL 内容
+     * @return Mono<BatchJob> 已开始执行的任务
+     */
+    public Mono<BatchJob> submit(String jsonl) {
+        return create(input -> Files.writeString(input, jsonl, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 提交本地 JSONL 文件，文件复制到任务目录后处理
+     *
+     * @param file JSONL 文件路径
+     * @return Mono<BatchJob> 已开始执行的任务
+     */
+    public Mono<BatchJob> submit(Path file) {
+        return create(input -> Files.copy(file, input));
+    }
+
+    /**
+     * 解析本地输入文件路径：相对路径基于默认 Agent 工作区，解析符号链接后必须仍在工作区内
+     *
+     * @param path 文件路径
+     * @return Mono<Path> 文件的实际路径，不存在、不是普通文件或超出工作区时为空
+     */
+    public Mono<Path> resolveInputFile(String path) {
+        return Mono.fromCallable(() -> {
+                    try {
+                        Path target = workspace.resolve(path).normalize();
+                        if (!target.startsWith(workspace) || !Files.isRegularFile(target)) {
+                            return null;
+                        }
+                        Path real = target.toRealPath();
+                        return real.startsWith(workspace.toRealPath()) ? real : null;
+                    } catch (IOException | InvalidPathException e) {
+                        return null;
+                    }
+                })
+                .subscribeOn(blockingSchedulers.disk());
+    }
+
+    /**
+     * 查询任务状态
+     *
+     * @param jobId 任务ID
+     * @return BatchJob，不存在时为 null
+     */
+    public BatchJob getJob(String jobId) {
+        if (!JOB_ID.matcher(jobId).matches()) {
+            return null;
+        }
+        BatchJob job = jobs.get(jobId);
+        return job != null ? job : readJob(jobId);
+    }
+
+    /**
+     * 任务的输出文件
+     *
+     * @param jobId 任务ID
+     * @return Path
+     */
+    public Path getOutputFile(String jobId) {
+        return jobDir(jobId).resolve(OUTPUT_FILE);
+    }
+
+    /**
+     * 启动时继续未完成的任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        if (!config.isResumeOnStartup() || !Files.isDirectory(batchDir)) {
+            return;
+        }
+        Mono.fromCallable(() -> {
+                    try (Stream<Path> dirs = Files.list(batchDir)) {
+                        return dirs.map(dir -> readJob(dir.getFileName().toString()))
+                                .filter(job -> job != null && job.getState() == BatchJob.State.RUNNING)
+                                .toList();
+                    }
+                })
+                .subscribeOn(blockingSchedulers.disk())
+                .subscribe(pending -> pending.forEach(job -> {
+                    log.info("Resuming batch job {} ({}/{} done)", job.getId(), job.getCompleted(), job.getTotal());
+                    run(job);
+                }), e -> log.error("Failed to resume batch jobs", e));
+    }
+
+    private Mono<BatchJob> create(InputWriter writer) {
+        return Mono.fromCallable(() -> {
+                    String jobId = UUID.randomUUID().toString();
+                    Path dir = jobDir(jobId);
+                    Files.createDirectories(dir);
+                    writer.write(dir.resolve(INPUT_FILE));
+
+                    BatchJob job = BatchJob.builder()
+                            .id(jobId)
+                            .state(BatchJob.State.RUNNING)
+                            .createdAt(Instant.now())
+                            .build();
+                    saveJob(job);
+                    return job;
+                })
+                .subscribeOn(blockingSchedulers.disk())
+                .doOnNext(job -> {
+                    log.info("Created batch job {}", job.getId());
+                    run(job);
+                });
+    }
+
+    /**
+     * 执行任务：跳过输出中已有的条目，其余条目并发交给 AgentLoop
+     */
+    private void run(BatchJob job) {
+        if (jobs.putIfAbsent(job.getId(), job) != null) {
+            return;
+        }
+        Path dir = jobDir(job.getId());
+
+        Set<String> seen = new HashSet<>();
+        Mono.fromCallable(() -> openOutput(job, dir))
+                .flatMap(output -> Flux.using(
+                                () -> Files.lines(dir.resolve(INPUT_FILE), StandardCharsets.UTF_8),
+                                Flux::fromStream,
+                                Stream::close)
+                        .index()
+                        .filter(line -> !line.getT2().isBlank())
+                        .map(line -> parseItem(line.getT2(), line.getT1() + 1))
+                        .filter(item -> seen.add(item.id()) && !output.done().contains(item.id()))
+                        .flatMap(item -> processItem(job, item)
+                                .publishOn(blockingSchedulers.disk())
+                                .doOnNext(result -> write(job, output, result)), Math.max(1, config.getConcurrency()))
+                        .then()
+                        .doFinally(signal -> output.close()))
+                .subscribeOn(blockingSchedulers.disk())
+                .doOnSuccess(v -> {
+                    boolean interrupted;
+                    synchronized (job) {
+                        interrupted = job.getCompleted() < job.getTotal();
+                    }
+                    // 停机中断的条目没有结果，保持 RUNNING 以便下次启动继续
+                    if (interrupted) {
+                        log.warn("Batch job {} stopped with {}/{} items done, will resume on next start",
+                                job.getId(), job.getCompleted(), job.getTotal());
+                    } else {
+                        finish(job, BatchJob.State.COMPLETED, null);
+                    }
+                })
+                .doOnError(e -> finish(job, BatchJob.State.FAILED, e.getMessage()))
+                .doFinally(signal -> jobs.remove(job.getId()))
+                .subscribe(null, e -> log.error("Batch job {} failed", job.getId(), e));
+    }
+
+    /**
+     * 处理单个条目，失败时返回带 error 的结果而不中断任务；被停机中断时没有结果，下次启动重新处理
+     */
+    private Mono<ObjectNode> processItem(BatchJob job, BatchItem item) {
+        ObjectNode result = objectMapper.createObjectNode().put("id", item.id());
+        if (item.error() != null) {
+            return Mono.just(result.put("error", item.error()));
+        }
+
+        Map<String, Object> metadata = new HashMap<>();
+        if (item.agent() != null) {
+            metadata.put(AgentRouter.AGENT, item.agent());
+        }
+        Message message = agentRouter.route(Message.builder()
+                .id(job.getId() + "-" + item.id())
+                .channelType(CHANNEL)
+                .userId(job.getId() + "-" + item.id())
+                .content(item.content())
+                .type(Message.MessageType.TEXT)
+                .metadata(metadata)
+                .timestamp(Instant.now())
+                .build());
+
+        long start = System.nanoTime();
+        return agentLoop.process(message)
+                .map(reply -> AgentLoop.isFailureReply(reply)
+                        ? result.put("error", reply)
+                        : result.put("response", reply))
+                .onErrorResume(e -> Mono.just(result.put("error", String.valueOf(e.getMessage()))))
+                .map(node -> node.put("elapsedMs", (System.nanoTime() - start) / 1_000_000))
+                .flatMap(node -> Mono.fromRunnable(() -> sessionManager.clearHistory(
+                                agentRouter.agentName(message), CHANNEL + ":" + message.getUserId()))
+                        .subscribeOn(blockingSchedulers.disk())
+                        .thenReturn(node));
+    }
+
+    /**
+     * 追加一条结果并刷盘
+     */
+    private void write(BatchJob job, Output output, ObjectNode result) {
+        boolean failed = result.has("error");
+        synchronized (output) {
+            try {
+                output.writer().write(objectMapper.writeValueAsString(result));
+                output.writer().newLine();
+                output.writer().flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        synchronized (job) {
+            job.setCompleted(job.getCompleted() + 1);
+            if (failed) {
+                job.setFailed(job.getFailed() + 1);
+            }
+        }
+        meterRegistry.counter("nanobot.batch.items", "outcome", failed ? "error" : "success").increment();
+    }
+
+    /**
+     * 打开输出文件：读取已完成的条目，补齐崩溃时写了一半的末行；总数按不重复的条目 id 计
+     */
+    private Output openOutput(BatchJob job, Path dir) throws IOException {
+        Set<String> ids = new HashSet<>();
+        int lineCount = 0;
+        try (Stream<String> lines = Files.lines(dir.resolve(INPUT_FILE), StandardCharsets.UTF_8)) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                lineCount++;
+                if (!line.isBlank()) {
+                    ids.add(parseItem(line, lineCount).id());
+                }
+            }
+        }
+        int total = ids.size();
+
+        Path outputFile = dir.resolve(OUTPUT_FILE);
+        Set<String> done = new HashSet<>();
+        int failed = 0;
+        if (Files.exists(outputFile)) {
+            try (Stream<String> lines = Files.lines(outputFile, StandardCharsets.UTF_8)) {
+                for (String line : (Iterable<String>) lines::iterator) {
+                    JsonNode node = parseJson(line);
+                    if (node != null && node.hasNonNull("id") && done.add(node.get("id").asText())) {
+                        failed += node.has("error") ? 1 : 0;
+                    }
+                }
+            }
+            terminateLastLine(outputFile);
+        }
+
+        synchronized (job) {
+            job.setTotal(total);
+            job.setCompleted(done.size());
+            job.setFailed(failed);
+        }
+        saveJob(job);
+        return new Output(done, Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    private void terminateLastLine(Path file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (raf.length() > 0) {
+                raf.seek(raf.length() - 1);
+                if (raf.read() != '\n') {
+                    raf.write('\n');
+                }
+            }
+        }
+    }
+
+    private void finish(BatchJob job, BatchJob.State state, String error) {
+        job.setState(state);
+        job.setError(error);
+        job.setFinishedAt(Instant.now());
+        saveJob(job);
+        log.info("Batch job {} {}: {}/{} done, {} failed", job.getId(), state, job.getCompleted(),
+                job.getTotal(), job.getFailed());
+    }
+
+    private BatchItem parseItem(String line, long lineNumber) {
+        JsonNode node = parseJson(line);
+        String id = node != null && node.hasNonNull("id") ? node.get("id").asText() : String.valueOf(lineNumber);
+        if (node == null || !node.isObject()) {
+            return new BatchItem(id, null, null, "Invalid JSON at line " + lineNumber);
+        }
+        String content = node.hasNonNull("content") ? node.get("content").asText() : node.path("prompt").asText(null);
+        if (content == null || content.isBlank()) {
+            return new BatchItem(id, null, null, "Missing content at line " + lineNumber);
+        }
+        String agent = node.hasNonNull("agent") ? node.get("agent").asText() : null;
+        return new BatchItem(id, content, agent, null);
+    }
+
+    private JsonNode parseJson(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void saveJob(BatchJob job) {
+        Path file = jobDir(job.getId()).resolve(JOB_FILE);
+        Path tempFile = file.resolveSibling(JOB_FILE + ".tmp");
+        try {
+            byte[] json;
+            synchronized (job) {
+                json = objectMapper.writeValueAsBytes(job);
+            }
+            Files.write(tempFile, json);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to save batch job {}", job.getId(), e);
+        }
+    }
+
+    private BatchJob readJob(String jobId) {
+        Path file = jobDir(jobId).resolve(JOB_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), BatchJob.class);
+        } catch (IOException e) {
+            log.warn("Failed to read batch job {}: {}", jobId, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path jobDir(String jobId) {
+        return batchDir.resolve(jobId);
+    }
+
+    @FunctionalInterface
+    private interface InputWriter {
+        void write(Path input) throws IOException;
+    }
+
+    private record BatchItem(String id, String content, String agent, String error) {
+    }
+
+    /**
+     * 打开中的输出文件和已完成的条目
+     */
+    private record Output(Set<String> done, BufferedWriter writer) {
+        void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Failed to close batch output: {}", e.getMessage());
+            }
+        }
+    }
+}
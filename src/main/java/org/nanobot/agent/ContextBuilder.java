@@ -2,11 +2,12 @@ package org.nanobot.agent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.nanobot.config.AgentConfig;
 import org.nanobot.model.ChatMessage;
 import org.nanobot.model.Message;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -23,7 +24,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ContextBuilder {
 
-    private final AgentConfig agentConfig;
+    private final AgentRouter agentRouter;
     private final SessionManager sessionManager;
 
     /**
@@ -47,6 +48,37 @@ public class ContextBuilder {
         return messages;
     }
 
+    /**
+     * 构建子任务上下文：系统提示词 + 子任务，不加载对话历史
+     *
+     * @param message 子任务消息
+     * @return List<ChatMessage>
+     */
+    public List<ChatMessage> buildSubtask(Message message) {
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(buildSystemPrompt(message));
+        messages.add(ChatMessage.system("你正在作为子 Agent 执行一个独立子任务。只完成该任务，"
+                + "最终回复只包含结论和必要的关键细节，不要复述过程。"));
+        messages.add(ChatMessage.user(message.getContent()));
+        return messages;
+    }
+
+    /**
+     * 计算上下文摘要
+     * 覆盖工作区和对话历史，不含系统提示词中的当前时间，用于判断两次请求是否共享同一上下文
+     *
+     * @param message 用户消息
+     * @return String 上下文摘要
+     */
+    public String contextHash(Message message) {
+        StringBuilder sb = new StringBuilder(getWorkspacePath(message));
+        for (ChatMessage history : loadHistory(message)) {
+            sb.append('\n').append(history.getRole().getValue())
+                    .append(':').append(history.getContent());
+        }
+        return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * 构建系统提示词
      */
@@ -55,7 +87,7 @@ public class ContextBuilder {
 
         prompt.append("你是一个 AI 助手，名字叫 Nanobot。\n\n");
         prompt.append(String.format("当前时间: %s\n\n", getCurrentTime()));
-        prompt.append(String.format("工作目录: %s\n\n", getWorkspacePath()));
+        prompt.append(String.format("工作目录: %s\n\n", getWorkspacePath(message)));
 
         // 添加可用工具信息
         prompt.append("你可以使用以下工具:\n");
@@ -74,8 +106,8 @@ public class ContextBuilder {
      */
     private List<ChatMessage> loadHistory(Message message) {
         String sessionId = getSessionId(message);
-        return sessionManager.getHistory(sessionId,
-                agentConfig.getDefaultAgent().getMaxHistory());
+        return sessionManager.getHistory(agentRouter.agentName(message), sessionId,
+                agentRouter.agentFor(message).getMaxHistory());
     }
 
     /**
@@ -95,7 +127,7 @@ public class ContextBuilder {
     /**
      * 获取工作区路径
      */
-    private String getWorkspacePath() {
-        return agentConfig.getDefaultAgent().getWorkspace();
+    private String getWorkspacePath(Message message) {
+        return agentRouter.agentFor(message).getWorkspace();
     }
 }
@@ -0,0 +1,114 @@
+package org.nanobot.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.nanobot.model.ToolCall;
+import org.nanobot.model.ToolResult;
+import org.nanobot.tool.Tool;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * 单轮对话内的循环检测
+ * 对每次迭代的工具调用及结果计算指纹：无副作用的重复调用直接复用本轮已有结果，
+ * 同一迭代指纹重复出现时由调用方注入纠正提示或提前结束
+ */
+class CycleDetector {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Function<String, Tool> toolLookup;
+
+    /**
+     * 无副作用工具调用的结果备忘 (调用指纹 → 结果内容)
+     */
+    private final Map<String, ToolResult> memo = new HashMap<>();
+
+    /**
+     * 迭代指纹出现次数
+     */
+    private final Map<String, Integer> iterationCounts = new HashMap<>();
+
+    CycleDetector(Function<String, Tool> toolLookup) {
+        this.toolLookup = toolLookup;
+    }
+
+    /**
+     * 查找本轮已执行过的相同调用结果
+     *
+     * @param call 工具调用
+     * @return ToolResult 以当前调用ID返回的备忘结果，未命中返回 null
+     */
+    synchronized ToolResult recall(ToolCall call) {
+        ToolResult previous = memo.get(fingerprint(call));
+        if (previous == null) {
+            return null;
+        }
+        return ToolResult.builder()
+                .toolCallId(call.getId())
+                .success(previous.isSuccess())
+                .content(previous.getContent())
+                .error(previous.getError())
+                .build();
+    }
+
+    /**
+     * 记录工具调用结果
+     * 有副作用的调用会使已有备忘失效（文件、环境可能已改变）
+     */
+    synchronized void remember(ToolCall call, ToolResult result) {
+        if (hasSideEffects(call)) {
+            memo.clear();
+        } else if (result.isSuccess()) {
+            memo.put(fingerprint(call), result);
+        }
+    }
+
+    /**
+     * 记录一次迭代并返回该迭代指纹的出现次数
+     *
+     * @param calls   本次迭代的工具调用
+     * @param results 本次迭代的工具结果
+     * @return int 出现次数 (首次为 1)
+     */
+    synchronized int recordIteration(List<ToolCall> calls, List<ToolResult> results) {
+        Map<String, String> resultsById = new HashMap<>();
+        for (ToolResult result : results) {
+            resultsById.put(result.getToolCallId(),
+                    result.isSuccess() ? result.getContent() : "Error: " + result.getError());
+        }
+
+        List<String> parts = new ArrayList<>();
+        for (ToolCall call : calls) {
+            String result = String.valueOf(resultsById.get(call.getId()));
+            parts.add(fingerprint(call) + "=" + DigestUtils.md5DigestAsHex(result.getBytes(StandardCharsets.UTF_8)));
+        }
+        parts.sort(String::compareTo);
+
+        return iterationCounts.merge(String.join("|", parts), 1, Integer::sum);
+    }
+
+    private boolean hasSideEffects(ToolCall call) {
+        Tool tool = toolLookup.apply(call.getFunctionName());
+        return tool == null || tool.hasSideEffects();
+    }
+
+    /**
+     * 工具调用指纹：工具名 + 按键排序的参数
+     */
+    private String fingerprint(ToolCall call) {
+        String arguments = call.getArguments() == null ? "" : call.getArguments();
+        try {
+            arguments = MAPPER.writeValueAsString(MAPPER.readValue(arguments, TreeMap.class));
+        } catch (Exception e) {
+            // 非 JSON 参数按原文比较
+        }
+        return call.getFunctionName() + ":" + arguments;
+    }
+}
@@ -0,0 +1,164 @@
+package org.nanobot.agent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.DispatchConfig;
+import org.nanobot.config.DispatchConfig.CoalesceConfig;
+import org.nanobot.model.Message;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 入站消息合并器
+ * 按会话缓冲短时间内连续到达的消息，在静默窗口结束或达到最长等待后合并为一条用户轮次；
+ * 默认静默窗口为 0（不合并），按频道配置窗口后启用
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InboundCoalescer {
+
+    private final DispatchConfig dispatchConfig;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 各合并流提交全部缓冲区的回调
+     */
+    private final List<Runnable> flushers = new CopyOnWriteArrayList<>();
+
+    /**
+     * 对入站消息流应用合并
+     *
+     * @param inbound 入站消息流
+     * @return Flux<Message> 合并后的消息流
+     */
+    public Flux<Message> coalesce(Flux<Message> inbound) {
+        if (!dispatchConfig.getCoalesce().anyEnabled()) {
+            return inbound;
+        }
+
+        return Flux.create(sink -> {
+            Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+            Runnable flusher = () -> buffers.values().forEach(buffer -> flush(buffers, buffer, sink));
+            flushers.add(flusher);
+            Disposable upstream = inbound.subscribe(
+                    message -> offer(buffers, message, sink),
+                    sink::error,
+                    () -> {
+                        buffers.values().forEach(buffer -> flush(buffers, buffer, sink));
+                        sink.complete();
+                    });
+            sink.onDispose(() -> {
+                flushers.remove(flusher);
+                upstream.dispose();
+            });
+        });
+    }
+
+    /**
+     * 立即提交所有缓冲中的消息（停机排空时调用）
+     */
+    public void flushAll() {
+        flushers.forEach(Runnable::run);
+    }
+
+    /**
+     * 将消息放入会话缓冲区
+     */
+    private void offer(Map<String, Buffer> buffers, Message message, FluxSink<Message> sink) {
+        CoalesceConfig config = dispatchConfig.getCoalesce();
+        String sessionId = getSessionId(message);
+        long window = config.windowFor(message.getChannelType()).toMillis();
+
+        // 非文本消息或未启用的频道不参与合并，但需先提交已缓冲的消息以保持顺序
+        if (message.getType() != Message.MessageType.TEXT || window <= 0) {
+            Buffer pending = buffers.get(sessionId);
+            if (pending != null) {
+                flush(buffers, pending, sink);
+            }
+            sink.next(message);
+            return;
+        }
+
+        while (true) {
+            Buffer buffer = buffers.computeIfAbsent(sessionId, k -> new Buffer(k, System.nanoTime()));
+            synchronized (buffer) {
+                if (buffer.closed) {
+                    continue;
+                }
+                buffer.messages.add(message);
+                if (buffer.timer != null) {
+                    buffer.timer.dispose();
+                }
+
+                long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - buffer.firstAt);
+                long delay = Math.min(window, config.getMaxWait().toMillis() - waitedMillis);
+                if (delay <= 0) {
+                    flush(buffers, buffer, sink);
+                } else {
+                    buffer.timer = Schedulers.parallel().schedule(
+                            () -> flush(buffers, buffer, sink), delay, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 提交缓冲区中的消息
+     */
+    private void flush(Map<String, Buffer> buffers, Buffer buffer, FluxSink<Message> sink) {
+        List<Message> messages;
+        synchronized (buffer) {
+            if (buffer.closed) {
+                return;
+            }
+            buffer.closed = true;
+            buffers.remove(buffer.sessionId, buffer);
+            if (buffer.timer != null) {
+                buffer.timer.dispose();
+            }
+            messages = buffer.messages;
+        }
+
+        if (messages.size() > 1) {
+            log.info("Coalesced {} messages for session {}", messages.size(), buffer.sessionId);
+            meterRegistry.counter("nanobot.dispatch.messages.coalesced").increment(messages.size() - 1);
+        }
+        sink.next(MessageMerger.merge(messages));
+    }
+
+    /**
+     * 获取会话 ID
+     */
+    private String getSessionId(Message message) {
+        return String.format("%s:%s", message.getChannelType(), message.getUserId());
+    }
+
+    /**
+     * 会话缓冲区
+     */
+    private static class Buffer {
+        private final String sessionId;
+        private final long firstAt;
+        private final List<Message> messages = new ArrayList<>();
+        private Disposable timer;
+        private boolean closed;
+
+        Buffer(String sessionId, long firstAt) {
+            this.sessionId = sessionId;
+            this.firstAt = firstAt;
+        }
+    }
+}
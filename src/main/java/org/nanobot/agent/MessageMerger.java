@@ -0,0 +1,108 @@
+package org.nanobot.agent;
+
+import org.nanobot.model.Message;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 入站消息合并工具
+ * 将同一会话的多条消息合并为一条用户轮次，并在元数据中保留原始消息ID
+ */
+final class MessageMerger {
+
+    /**
+     * 合并后的内部消息ID列表
+     */
+    static final String MERGED_MESSAGE_IDS = "merged_message_ids";
+
+    /**
+     * 合并后的平台消息ID列表 (用于回复引用)
+     */
+    static final String SOURCE_MESSAGE_IDS = "source_message_ids";
+
+    /**
+     * 频道侧的平台消息ID键
+     */
+    private static final String MESSAGE_ID = "message_id";
+
+    private MessageMerger() {
+    }
+
+    /**
+     * 按顺序合并消息，元数据以最后一条为准
+     *
+     * @param messages 同一会话的消息，按到达顺序排列
+     * @return Message 合并后的消息
+     */
+    static Message merge(List<Message> messages) {
+        if (messages.size() == 1) {
+            return messages.get(0);
+        }
+
+        Message latest = messages.get(messages.size() - 1);
+        StringBuilder content = new StringBuilder();
+        List<String> mergedIds = new ArrayList<>();
+        List<Object> sourceIds = new ArrayList<>();
+
+        for (Message message : messages) {
+            if (message.getContent() != null && !message.getContent().isBlank()) {
+                if (content.length() > 0) {
+                    content.append('\n');
+                }
+                content.append(message.getContent());
+            }
+            collectIds(message, mergedIds, sourceIds);
+        }
+
+        Map<String, Object> metadata = latest.getMetadata() != null
+                ? new HashMap<>(latest.getMetadata())
+                : new HashMap<>();
+        metadata.put(MERGED_MESSAGE_IDS, mergedIds);
+        if (!sourceIds.isEmpty()) {
+            metadata.put(SOURCE_MESSAGE_IDS, sourceIds);
+        }
+
+        return Message.builder()
+                .id(UUID.randomUUID().toString())
+                .channelId(latest.getChannelId())
+                .channelType(latest.getChannelType())
+                .userId(latest.getUserId())
+                .userName(latest.getUserName())
+                .content(content.toString())
+                .type(latest.getType())
+                .metadata(metadata)
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    /**
+     * 合并两条消息
+     */
+    static Message merge(Message first, Message second) {
+        return merge(List.of(first, second));
+    }
+
+    /**
+     * 收集消息ID，已合并过的消息展开其原始ID
+     */
+    private static void collectIds(Message message, List<String> mergedIds, List<Object> sourceIds) {
+        Map<String, Object> metadata = message.getMetadata();
+        if (metadata != null && metadata.get(MERGED_MESSAGE_IDS) instanceof List<?> ids) {
+            ids.forEach(id -> mergedIds.add(String.valueOf(id)));
+            if (metadata.get(SOURCE_MESSAGE_IDS) instanceof List<?> sources) {
+                sourceIds.addAll(sources);
+            }
+            return;
+        }
+
+        mergedIds.add(message.getId());
+        if (metadata != null && metadata.get(MESSAGE_ID) != null) {
+            sourceIds.add(metadata.get(MESSAGE_ID));
+        }
+    }
+}
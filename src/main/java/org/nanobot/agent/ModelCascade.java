@@ -0,0 +1,182 @@
+package org.nanobot.agent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.AgentConfig.CascadeConfig;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ChatProvider.ChatResponse;
+import org.nanobot.provider.ModelOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 模型级联
+ * 在调用主模型前对轮次分类：简单轮次（闲聊、致谢、简短问答）先交给快速模型，
+ * 快速模型请求工具或表示没有把握时升级到主模型；规则无法判断时可选用小模型分类
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ModelCascade {
+
+    /**
+     * 快速模型表示需要升级时的回复
+     */
+    private static final String ESCALATE = "ESCALATE";
+
+    private static final String FAST_MODEL_PROMPT = "你当前不能使用任何工具。如果回答需要读写文件、执行命令、"
+            + "发送消息等工具操作，或你对答案没有把握，只回复 " + ESCALATE + "，不要输出其他内容。";
+
+    private static final String CLASSIFIER_PROMPT = "判断下面的用户请求是否简单：闲聊、致谢、常识性简短问答，"
+            + "不需要工具、不需要多步推理。只回复 SIMPLE 或 COMPLEX。\n\n请求: ";
+
+    /**
+     * 闲聊、致谢等可直接回答的短消息
+     */
+    private static final Pattern SMALL_TALK = Pattern.compile(
+            "^(谢谢|多谢|感谢|thanks?( you)?|thx|你好|您好|hi|hello|hey|好的|好|ok|okay|收到|明白了?|再见|bye|早上好|晚安)[!！.。~ ]*$");
+
+    /**
+     * 提示需要工具或多步推理的关键词
+     */
+    private static final List<String> COMPLEX_HINTS = List.of(
+            "```", "文件", "目录", "执行", "命令", "代码", "脚本", "日志", "运行", "部署", "分析", "总结", "搜索",
+            "file", "exec", "run ", "code", "script", "log", "deploy", "analy", "summar", "search", "/", "http");
+
+    private final MeterRegistry meterRegistry;
+    private final Optional<ChatProvider> chatProvider;
+
+    /**
+     * 分类结果
+     */
+    enum Route {
+        SIMPLE, COMPLEX, UNSURE
+    }
+
+    /**
+     * 按级联策略调用模型
+     *
+     * @param config   级联配置
+     * @param content  用户消息内容
+     * @param messages 当前上下文
+     * @param strong   主模型调用
+     * @return Mono<ChatResponse> 模型响应
+     */
+    public Mono<ChatResponse> call(CascadeConfig config, String content, List<ChatMessage> messages,
+                                   Supplier<Mono<ChatResponse>> strong) {
+        if (!config.isEnabled() || chatProvider.isEmpty()) {
+            return strong.get();
+        }
+
+        return classify(config, content)
+                .flatMap(simple -> {
+                    if (!simple) {
+                        return timed("strong", strong.get());
+                    }
+                    long start = System.nanoTime();
+                    return callFast(config, messages)
+                            .doOnNext(response -> record("fast", start))
+                            .switchIfEmpty(Mono.defer(() -> {
+                                log.debug("Fast model escalated, calling strong model");
+                                return strong.get().doOnSuccess(r -> record("escalated", start));
+                            }));
+                });
+    }
+
+    /**
+     * 调用快速模型，需要升级时返回空
+     * 与主模型一样走流式路径并聚合，级联提示作为首条系统消息放在上下文之前
+     */
+    private Mono<ChatResponse> callFast(CascadeConfig config, List<ChatMessage> messages) {
+        List<ChatMessage> fastMessages = new ArrayList<>(messages.size() + 1);
+        fastMessages.add(ChatMessage.system(FAST_MODEL_PROMPT));
+        fastMessages.addAll(messages);
+
+        return ChatChunk.collect(chatProvider.get()
+                        .stream(fastMessages, List.of(), ModelOptions.of(config.getFastModel(), null)))
+                .filter(response -> !response.hasToolCalls()
+                        && response.getContent() != null
+                        && !response.getContent().isBlank()
+                        && !response.getContent().contains(ESCALATE))
+                .onErrorResume(e -> {
+                    log.warn("Fast model {} failed, escalating: {}", config.getFastModel(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 分类：先用本地规则，无法判断时可选用小模型
+     *
+     * @return Mono<Boolean> 是否为简单轮次
+     */
+    private Mono<Boolean> classify(CascadeConfig config, String content) {
+        Route route = classifyLocally(content, config.getMaxSimpleChars());
+        if (route != Route.UNSURE) {
+            return Mono.just(route == Route.SIMPLE);
+        }
+        if (config.getClassifierModel() == null || config.getClassifierModel().isBlank()) {
+            return Mono.just(false);
+        }
+
+        return ChatChunk.collect(chatProvider.get()
+                        .stream(List.of(ChatMessage.user(CLASSIFIER_PROMPT + content)), List.of(),
+                                ModelOptions.of(config.getClassifierModel(), 0.0)))
+                .map(response -> response.getContent() != null
+                        && response.getContent().toUpperCase(Locale.ROOT).contains("SIMPLE"))
+                .doOnNext(simple -> meterRegistry.counter("nanobot.agent.cascade.classified",
+                        "result", simple ? "simple" : "complex").increment())
+                .onErrorReturn(false);
+    }
+
+    /**
+     * 本地规则分类
+     */
+    static Route classifyLocally(String content, int maxSimpleChars) {
+        if (content == null || content.isBlank()) {
+            return Route.SIMPLE;
+        }
+        String text = content.trim().toLowerCase(Locale.ROOT);
+        if (text.length() > maxSimpleChars) {
+            return Route.COMPLEX;
+        }
+        if (SMALL_TALK.matcher(text).matches()) {
+            return Route.SIMPLE;
+        }
+        for (String hint : COMPLEX_HINTS) {
+            if (text.contains(hint)) {
+                return Route.COMPLEX;
+            }
+        }
+        return Route.UNSURE;
+    }
+
+    private Mono<ChatResponse> timed(String route, Mono<ChatResponse> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doOnSuccess(r -> record(route, start));
+        });
+    }
+
+    /**
+     * 记录各路由的调用次数和延迟，升级率 = escalated / (fast + escalated)
+     */
+    private void record(String route, long startNanos) {
+        Timer.builder("nanobot.agent.cascade.latency")
+                .description("Model latency per cascade route")
+                .tag("route", route)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -1,11 +1,14 @@
 package org.nanobot.agent;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.nanobot.config.AgentConfig;
 import org.nanobot.model.ChatMessage;
+import org.nanobot.model.Message;
 import org.nanobot.model.ToolCall;
 import org.springframework.stereotype.Component;
 
@@ -16,48 +19,66 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
  * 会话管理器
  * 负责会话历史的持久化存储和检索
- * 使用 JSONL 格式存储，每行一条消息
+ * 使用 JSONL 格式存储，每行一条消息；会话历史和轮次检查点保存在所属 Agent 工作区的 sessions 目录，
+ * 各 Agent 互相隔离。停机时未处理的入站消息尚未路由，保存在默认 Agent 的目录
  */
 @Slf4j
 @Component
 public class SessionManager {
 
-    private final String sessionDir;
+    /**
+     * 轮次检查点文件后缀
+     */
+    private static final String TURN_SUFFIX = ".turn.json";
+
+    /**
+     * 停机时未处理的入站消息文件
+     */
+    private static final String PENDING_INBOUND_FILE = "pending-inbound.json";
+
+    private final AgentConfig agentConfig;
+    private final AgentRouter agentRouter;
     private final ObjectMapper objectMapper;
 
-    public SessionManager(AgentConfig agentConfig) {
-        this.sessionDir = agentConfig.getDefaultAgent().getWorkspace() + "/sessions";
-        this.objectMapper = new ObjectMapper();
+    /**
+     * 已确认存在的会话目录
+     */
+    private final Set<String> createdDirs = ConcurrentHashMap.newKeySet();
 
-        // 确保会话目录存在
-        File dir = new File(sessionDir);
-        if (!dir.exists()) {
-            boolean created = dir.mkdirs();
-            if (created) {
-                log.info("Created session directory: {}", sessionDir);
-            }
-        }
-        log.debug("Session manager initialized with directory: {}", sessionDir);
+    public SessionManager(AgentConfig agentConfig, AgentRouter agentRouter) {
+        this.agentConfig = agentConfig;
+        this.agentRouter = agentRouter;
+        this.objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        sessionDir(AgentConfig.DEFAULT_AGENT);
+        log.debug("Session manager initialized with directory: {}", sessionDir(AgentConfig.DEFAULT_AGENT));
     }
 
     /**
      * 获取会话历史
      *
+     * @param agent       Agent 名称
      * @param sessionId   会话ID
      * @param maxMessages 最大消息数
      * @return List<ChatMessage> 按时间顺序排列的消息列表
      */
-    public List<ChatMessage> getHistory(String sessionId, int maxMessages) {
-        Path sessionFile = getSessionFile(sessionId);
+    public List<ChatMessage> getHistory(String agent, String sessionId, int maxMessages) {
+        Path sessionFile = getSessionFile(agent, sessionId);
         if (!Files.exists(sessionFile)) {
             log.debug("Session file not found: {}", sessionFile);
             return List.of();
@@ -93,11 +114,12 @@ public class SessionManager {
     /**
      * 追加消息到会话
      *
+     * @param agent     Agent 名称
      * @param sessionId 会话ID
      * @param message   消息
      */
-    public void appendMessage(String sessionId, ChatMessage message) {
-        Path sessionFile = getSessionFile(sessionId);
+    public void appendMessage(String agent, String sessionId, ChatMessage message) {
+        Path sessionFile = getSessionFile(agent, sessionId);
 
         try {
             String json = formatMessage(message);
@@ -112,11 +134,12 @@ public class SessionManager {
     /**
      * 清除会话历史
      *
+     * @param agent     Agent 名称
      * @param sessionId 会话ID
      * @return boolean 是否成功删除
      */
-    public boolean clearHistory(String sessionId) {
-        Path sessionFile = getSessionFile(sessionId);
+    public boolean clearHistory(String agent, String sessionId) {
+        Path sessionFile = getSessionFile(agent, sessionId);
         try {
             boolean deleted = Files.deleteIfExists(sessionFile);
             if (deleted) {
@@ -130,12 +153,13 @@ public class SessionManager {
     }
 
     /**
-     * 列出所有会话ID
+     * 列出 Agent 的所有会话ID
      *
+     * @param agent Agent 名称
      * @return List<String> 会话ID列表
      */
-    public List<String> listSessions() {
-        File dir = new File(sessionDir);
+    public List<String> listSessions(String agent) {
+        File dir = new File(sessionDir(agent));
         if (!dir.exists()) {
             return List.of();
         }
@@ -157,25 +181,161 @@ public class SessionManager {
     /**
      * 检查会话是否存在
      *
+     * @param agent     Agent 名称
      * @param sessionId 会话ID
      * @return boolean 是否存在
      */
-    public boolean sessionExists(String sessionId) {
-        return Files.exists(getSessionFile(sessionId));
+    public boolean sessionExists(String agent, String sessionId) {
+        return Files.exists(getSessionFile(agent, sessionId));
+    }
+
+    /**
+     * 保存轮次检查点
+     * 先写临时文件再原子替换，避免进程中断留下半个检查点
+     *
+     * @param state 轮次状态
+     */
+    public void saveTurnState(TurnState state) {
+        Path turnFile = getTurnFile(state);
+        Path tempFile = turnFile.resolveSibling(turnFile.getFileName() + ".tmp");
+        try {
+            Files.write(tempFile, objectMapper.writeValueAsBytes(state));
+            Files.move(tempFile, turnFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Checkpointed turn {} at iteration {} ({})",
+                    state.getTurnId(), state.getIteration(), state.getPhase());
+        } catch (IOException e) {
+            log.error("Failed to checkpoint turn: {}", state.getTurnId(), e);
+        }
+    }
+
+    /**
+     * 删除轮次检查点
+     *
+     * @param state 轮次状态
+     */
+    public void clearTurnState(TurnState state) {
+        try {
+            Files.deleteIfExists(getTurnFile(state));
+        } catch (IOException e) {
+            log.error("Failed to delete turn checkpoint: {}", state.getTurnId(), e);
+        }
+    }
+
+    /**
+     * 加载所有 Agent 未完成的轮次检查点
+     *
+     * @return List<TurnState> 未完成的轮次
+     */
+    public List<TurnState> loadTurnStates() {
+        // 多个 Agent 可能共用同一工作区，目录去重
+        Set<String> dirs = new LinkedHashSet<>();
+        dirs.add(sessionDir(AgentConfig.DEFAULT_AGENT));
+        agentConfig.getAgents().keySet().forEach(agent -> dirs.add(sessionDir(agent)));
+
+        List<TurnState> states = new ArrayList<>();
+        for (String sessionDir : dirs) {
+            File[] files = new File(sessionDir).listFiles((d, name) -> name.endsWith(TURN_SUFFIX));
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                try {
+                    states.add(objectMapper.readValue(file, TurnState.class));
+                } catch (IOException e) {
+                    log.warn("Failed to read turn checkpoint {}, skipping: {}", file.getName(), e.getMessage());
+                }
+            }
+        }
+        return states;
+    }
+
+    /**
+     * 保存停机时未处理的入站消息，与尚未重放的消息合并
+     *
+     * @param messages 入站消息
+     */
+    public void savePendingInbound(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(sessionDir(AgentConfig.DEFAULT_AGENT), PENDING_INBOUND_FILE);
+        Path tempFile = file.resolveSibling(PENDING_INBOUND_FILE + ".tmp");
+        try {
+            List<Message> all = new ArrayList<>(readPendingInbound(file));
+            all.addAll(messages);
+            Files.write(tempFile, objectMapper.writeValueAsBytes(all));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Persisted {} pending inbound messages", messages.size());
+        } catch (IOException e) {
+            log.error("Failed to persist {} pending inbound messages", messages.size(), e);
+        }
+    }
+
+    /**
+     * 取出上次停机时未处理的入站消息，取出后删除文件
+     *
+     * @return List<Message> 按到达顺序排列的入站消息
+     */
+    public List<Message> takePendingInbound() {
+        Path file = Paths.get(sessionDir(AgentConfig.DEFAULT_AGENT), PENDING_INBOUND_FILE);
+        List<Message> messages = readPendingInbound(file);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.error("Failed to delete pending inbound file: {}", file, e);
+        }
+        return messages;
+    }
+
+    private List<Message> readPendingInbound(Path file) {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), new TypeReference<List<Message>>() {});
+        } catch (IOException e) {
+            log.warn("Failed to read pending inbound file {}, skipping: {}", file, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Agent 的会话目录（工作区下的 sessions），首次使用时创建
+     */
+    private String sessionDir(String agent) {
+        String sessionDir = agentConfig.getAgent(agent).getWorkspace() + "/sessions";
+        if (createdDirs.add(sessionDir)) {
+            File dir = new File(sessionDir);
+            if (!dir.exists() && dir.mkdirs()) {
+                log.info("Created session directory: {}", sessionDir);
+            }
+        }
+        return sessionDir;
     }
 
     /**
      * 获取会话文件路径
      *
+     * @param agent     Agent 名称
      * @param sessionId 会话ID
      * @return Path 会话文件路径
      */
-    private Path getSessionFile(String sessionId) {
+    private Path getSessionFile(String agent, String sessionId) {
         // 将 sessionId 中的特殊字符替换为下划线，防止路径遍历攻击
         // Windows 不允许文件名包含 : \ / * ? " < > |
         // 使用更严格的替换规则，仅保留字母数字和部分安全字符
         String safeSessionId = sessionId.replaceAll("[^a-zA-Z0-9_-]", "_");
-        return Paths.get(sessionDir, safeSessionId + ".jsonl");
+        return Paths.get(sessionDir(agent), safeSessionId + ".jsonl");
+    }
+
+    /**
+     * 获取轮次检查点文件路径，位于轮次消息所属 Agent 的会话目录
+     */
+    private Path getTurnFile(TurnState state) {
+        String safeSessionId = state.getSessionId().replaceAll("[^a-zA-Z0-9_-]", "_");
+        String safeTurnId = state.getTurnId().replaceAll("[^a-zA-Z0-9_-]", "_");
+        String agent = state.getMessage() != null ? agentRouter.agentName(state.getMessage()) : AgentConfig.DEFAULT_AGENT;
+        return Paths.get(sessionDir(agent), safeSessionId + "." + safeTurnId + TURN_SUFFIX);
     }
 
     /**
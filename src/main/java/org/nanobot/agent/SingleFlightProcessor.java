@@ -0,0 +1,190 @@
+package org.nanobot.agent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.DispatchConfig;
+import org.nanobot.config.DispatchConfig.SingleFlightConfig;
+import org.nanobot.model.Message;
+import org.nanobot.runtime.BlockingSchedulers;
+import org.nanobot.tool.ToolRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 相同请求去重处理器
+ * 对标记为可缓存的请求，规范化提示词、上下文摘要和工具集版本都相同的并发请求共享同一次 AgentLoop 执行，
+ * 结果在短时间内缓存以服务后续相同请求
+ */
+@Slf4j
+@Component
+public class SingleFlightProcessor {
+
+    /**
+     * 消息级可缓存标记
+     */
+    public static final String CACHEABLE = "cacheable";
+
+    private final AgentLoop agentLoop;
+    private final ContextBuilder contextBuilder;
+    private final ToolRegistry toolRegistry;
+    private final AgentRouter agentRouter;
+    private final SingleFlightConfig config;
+    private final MeterRegistry meterRegistry;
+    private final BlockingSchedulers blockingSchedulers;
+
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedReply> responseCache;
+
+    public SingleFlightProcessor(AgentLoop agentLoop,
+                                 ContextBuilder contextBuilder,
+                                 ToolRegistry toolRegistry,
+                                 AgentRouter agentRouter,
+                                 DispatchConfig dispatchConfig,
+                                 MeterRegistry meterRegistry,
+                                 BlockingSchedulers blockingSchedulers) {
+        this.agentLoop = agentLoop;
+        this.contextBuilder = contextBuilder;
+        this.toolRegistry = toolRegistry;
+        this.agentRouter = agentRouter;
+        this.config = dispatchConfig.getSingleFlight();
+        this.meterRegistry = meterRegistry;
+        this.blockingSchedulers = blockingSchedulers;
+
+        int maxEntries = config.getMaxEntries();
+        this.responseCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedReply> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 处理消息，可缓存的请求走去重路径
+     *
+     * @param message 用户消息
+     * @return Mono<String> AI 回复
+     */
+    public Mono<String> process(Message message) {
+        if (!isCacheable(message)) {
+            return agentLoop.process(message);
+        }
+
+        return Mono.defer(() -> {
+            String key = buildKey(message);
+
+            String cached = getCachedReply(key);
+            if (cached != null) {
+                log.debug("Serving message {} from response cache", message.getId());
+                meterRegistry.counter("nanobot.singleflight.requests", "result", "cache_hit").increment();
+                agentLoop.recordTurn(message, cached);
+                return Mono.just(cached);
+            }
+
+            Flight candidate = new Flight(message);
+            candidate.result = Mono.defer(() -> agentLoop.process(message))
+                    .doOnNext(reply -> putCachedReply(key, reply))
+                    .doFinally(signal -> inFlight.remove(key, candidate))
+                    .cache();
+
+            Flight flight = inFlight.putIfAbsent(key, candidate);
+            if (flight == null) {
+                meterRegistry.counter("nanobot.singleflight.requests", "result", "leader").increment();
+                return candidate.result;
+            }
+
+            // 跟随已在执行的请求，结果写入自己的会话
+            log.debug("Message {} joined in-flight request of {}", message.getId(), flight.leader.getId());
+            meterRegistry.counter("nanobot.singleflight.requests", "result", "shared").increment();
+            return flight.result.doOnNext(reply -> {
+                if (!AgentLoop.isFailureReply(reply)) {
+                    agentLoop.recordTurn(message, reply);
+                }
+            });
+        }).subscribeOn(blockingSchedulers.disk()); // 计算上下文摘要、写入会话历史需要读写磁盘
+    }
+
+    /**
+     * 判断消息是否可缓存
+     */
+    private boolean isCacheable(Message message) {
+        if (!config.isEnabled()) {
+            return false;
+        }
+        if (message.getMetadata() != null && message.getMetadata().get(CACHEABLE) != null) {
+            return Boolean.parseBoolean(String.valueOf(message.getMetadata().get(CACHEABLE)));
+        }
+        return config.getChannels().contains(message.getChannelType());
+    }
+
+    /**
+     * 构建去重键：规范化提示词 + 上下文摘要 + 工具集版本 + Agent 和模型
+     */
+    private String buildKey(Message message) {
+        String raw = normalize(message.getContent())
+                + '\u0000' + contextBuilder.contextHash(message)
+                + '\u0000' + toolRegistry.getVersion()
+                + '\u0000' + agentRouter.agentName(message)
+                + '\u0000' + agentRouter.agentFor(message).getModel();
+        return DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 规范化提示词：去除首尾空白、合并连续空白、统一小写
+     */
+    private String normalize(String content) {
+        if (content == null) {
+            return "";
+        }
+        return content.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private String getCachedReply(String key) {
+        synchronized (responseCache) {
+            CachedReply cached = responseCache.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt < System.currentTimeMillis()) {
+                responseCache.remove(key);
+                return null;
+            }
+            return cached.reply;
+        }
+    }
+
+    private void putCachedReply(String key, String reply) {
+        if (AgentLoop.isFailureReply(reply)) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + config.getResponseTtl().toMillis();
+        synchronized (responseCache) {
+            responseCache.put(key, new CachedReply(reply, expiresAt));
+        }
+    }
+
+    /**
+     * 执行中的共享请求
+     */
+    private static class Flight {
+        private final Message leader;
+        private Mono<String> result;
+
+        Flight(Message leader) {
+            this.leader = leader;
+        }
+    }
+
+    /**
+     * 缓存的回复
+     */
+    private record CachedReply(String reply, long expiresAt) {
+    }
+}
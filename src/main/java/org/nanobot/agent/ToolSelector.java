@@ -0,0 +1,175 @@
+package org.nanobot.agent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.ToolsConfig;
+import org.nanobot.config.ToolsConfig.SelectionConfig;
+import org.nanobot.provider.TokenEstimator;
+import org.nanobot.tool.Tool;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 工具子集选择
+ * 每轮按消息与工具名称、描述的关键词重合度，加上会话最近使用过的工具，只向模型提供相关的工具定义，
+ * 减少每次请求携带的 JSON Schema；没有任何工具匹配时提供全部工具
+ */
+@Slf4j
+@Component
+public class ToolSelector {
+
+    /**
+     * 工具描述中普遍出现、不具区分度的词
+     */
+    private static final Set<String> STOP_WORDS = Set.of("参数", "the", "and", "for", "with");
+
+    private final SelectionConfig config;
+    private final DistributionSummary schemaTokensSaved;
+
+    /**
+     * 会话最近使用的工具 (会话ID → 工具名)
+     */
+    private final Map<String, LinkedHashSet<String>> sticky;
+
+    public ToolSelector(ToolsConfig toolsConfig, MeterRegistry meterRegistry) {
+        this.config = toolsConfig.getSelection();
+        this.schemaTokensSaved = DistributionSummary.builder("nanobot.agent.tools.schema_tokens_saved")
+                .description("Estimated tool schema tokens not sent per model call")
+                .register(meterRegistry);
+
+        int maxSessions = config.getMaxSessions();
+        this.sticky = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LinkedHashSet<String>> eldest) {
+                return size() > maxSessions;
+            }
+        };
+    }
+
+    /**
+     * 选择本轮提供给模型的工具
+     *
+     * @param sessionId 会话ID
+     * @param content   用户消息内容
+     * @param tools     全部可用工具
+     * @return List<Tool> 选中的工具
+     */
+    public List<Tool> select(String sessionId, String content, List<Tool> tools) {
+        if (!config.isEnabled() || tools.isEmpty()) {
+            return tools;
+        }
+
+        Set<String> sessionTools = recentTools(sessionId);
+        Set<String> words = tokenize(content);
+        boolean matched = false;
+
+        List<Tool> selected = new ArrayList<>();
+        for (Tool tool : tools) {
+            boolean relevant = overlaps(words, tokenize(tool.getName() + " " + tool.getDescription()));
+            matched |= relevant;
+            if (relevant
+                    || config.getAlwaysInclude().contains(tool.getName())
+                    || sessionTools.contains(tool.getName())) {
+                selected.add(tool);
+            }
+        }
+
+        if (!matched) {
+            return tools;
+        }
+
+        int saved = schemaTokens(tools) - schemaTokens(selected);
+        schemaTokensSaved.record(saved);
+        log.debug("Selected {}/{} tools for session {}, ~{} schema tokens saved",
+                selected.size(), tools.size(), sessionId, saved);
+        return selected;
+    }
+
+    /**
+     * 记录会话本轮使用的工具
+     *
+     * @param sessionId 会话ID
+     * @param toolNames 使用的工具
+     */
+    public void remember(String sessionId, Collection<String> toolNames) {
+        if (!config.isEnabled() || toolNames.isEmpty()) {
+            return;
+        }
+        synchronized (sticky) {
+            LinkedHashSet<String> recent = sticky.computeIfAbsent(sessionId, k -> new LinkedHashSet<>());
+            for (String name : toolNames) {
+                // 重新插入以更新顺序
+                recent.remove(name);
+                recent.add(name);
+            }
+            while (recent.size() > config.getStickySize()) {
+                recent.remove(recent.iterator().next());
+            }
+        }
+    }
+
+    private Set<String> recentTools(String sessionId) {
+        synchronized (sticky) {
+            LinkedHashSet<String> recent = sticky.get(sessionId);
+            return recent == null ? Set.of() : new HashSet<>(recent);
+        }
+    }
+
+    private boolean overlaps(Set<String> words, Set<String> toolWords) {
+        for (String word : words) {
+            if (toolWords.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 分词：英文按单词（下划线拆开），中文按相邻两字
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> words = new HashSet<>();
+        if (text == null) {
+            return words;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String word : lower.split("[^a-z0-9]+")) {
+            if (word.length() >= 3 && !STOP_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        for (int i = 0; i + 1 < lower.length(); i++) {
+            if (isCjk(lower.charAt(i)) && isCjk(lower.charAt(i + 1))) {
+                String bigram = lower.substring(i, i + 2);
+                if (!STOP_WORDS.contains(bigram)) {
+                    words.add(bigram);
+                }
+            }
+        }
+        return words;
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    private int schemaTokens(List<Tool> tools) {
+        int tokens = 0;
+        for (Tool tool : tools) {
+            tokens += TokenEstimator.estimate(tool.getName())
+                    + TokenEstimator.estimate(tool.getDescription())
+                    + TokenEstimator.estimate(tool.getParameterSchema());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,127 @@
+package org.nanobot.agent;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.model.Message;
+import org.nanobot.model.ToolCall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单轮对话的执行状态
+ * AgentLoop 按阶段推进该状态，每次推进后写入检查点，进程重启后可从检查点继续
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TurnState {
+
+    /**
+     * 轮次ID
+     */
+    private String turnId;
+
+    /**
+     * 会话ID
+     */
+    private String sessionId;
+
+    /**
+     * 触发本轮的用户消息
+     */
+    private Message message;
+
+    /**
+     * 当前阶段
+     */
+    private Phase phase;
+
+    /**
+     * 已完成的迭代次数
+     */
+    private int iteration;
+
+    /**
+     * 最大迭代次数
+     */
+    private int maxIterations;
+
+    /**
+     * 本轮使用的模型，为空时使用 Agent 配置的模型（超出每日预算降级时设置）
+     */
+    private String model;
+
+    /**
+     * 当前上下文消息
+     */
+    @Builder.Default
+    private List<ChatMessage> messages = new ArrayList<>();
+
+    /**
+     * 待执行的工具调用
+     */
+    private List<ToolCall> pendingToolCalls;
+
+    /**
+     * 最终回复
+     */
+    private String finalResponse;
+
+    /**
+     * 是否为子 Agent 轮次（不写检查点、不保存会话历史）
+     */
+    private boolean subagent;
+
+    /**
+     * 本轮不提供给模型的工具
+     */
+    private List<String> excludedTools;
+
+    /**
+     * 是否向模型提供全部工具（模型请求了未提供的工具后置为 true）
+     */
+    private boolean fullToolset;
+
+    /**
+     * 剩余 token 预算（估算值），为空表示不限制
+     */
+    @JsonIgnore
+    private AtomicLong tokenBudget;
+
+    /**
+     * 是否已结束
+     */
+    @JsonIgnore
+    public boolean isDone() {
+        return phase == Phase.DONE;
+    }
+
+    /**
+     * 执行阶段
+     */
+    public enum Phase {
+        /**
+         * 调用模型
+         */
+        CALL_LLM,
+        /**
+         * 执行模型返回的工具调用
+         */
+        EXECUTE_TOOLS,
+        /**
+         * 不再提供工具，要求模型直接作答
+         */
+        FORCE_ANSWER,
+        /**
+         * 已结束
+         */
+        DONE
+    }
+}
@@ -0,0 +1,82 @@
+package org.nanobot.api.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.agent.BatchJob;
+import org.nanobot.agent.BatchProcessor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * 批量处理控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/batch")
+@RequiredArgsConstructor
+public class BatchController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final BatchProcessor batchProcessor;
+
+    /**
+     * 上传 JSONL 内容创建批量任务
+     */
+    @PostMapping(consumes = {"application/x-ndjson", "application/jsonl", MediaType.TEXT_PLAIN_VALUE})
+    public Mono<BatchJob> upload(@RequestBody String jsonl) {
+        return batchProcessor.submit(jsonl);
+    }
+
+    /**
+     * 以服务器本地 JSONL 文件创建批量任务，文件须位于默认 Agent 工作区内
+     */
+    @PostMapping(path = "/file", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<BatchJob>> fromFile(@RequestBody Map<String, String> request) {
+        String path = request.get("path");
+        if (path == null) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return batchProcessor.resolveInputFile(path)
+                .flatMap(batchProcessor::submit)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.badRequest().build());
+    }
+
+    /**
+     * 查询任务进度
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BatchJob> status(@PathVariable String jobId) {
+        BatchJob job = batchProcessor.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 下载任务结果（已完成部分）
+     */
+    @GetMapping("/{jobId}/results")
+    public ResponseEntity<Resource> results(@PathVariable String jobId) {
+        if (batchProcessor.getJob(jobId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Path output = batchProcessor.getOutputFile(jobId);
+        if (!Files.exists(output)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok().contentType(NDJSON).body(new FileSystemResource(output));
+    }
+}
@@ -3,6 +3,9 @@ package org.nanobot.api.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.nanobot.channel.ChannelManager;
+import org.nanobot.provider.resilience.CircuitBreaker;
+import org.nanobot.provider.resilience.CircuitBreakerRegistry;
+import org.nanobot.provider.usage.UsageLedger;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -20,16 +23,22 @@ import java.util.Map;
 public class GatewayController {
 
     private final ChannelManager channelManager;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final UsageLedger usageLedger;
 
     /**
      * 健康检查
      */
     @GetMapping("/health")
     public Map<String, Object> health() {
+        Map<String, CircuitBreaker.State> providers = circuitBreakerRegistry.getStates();
+        boolean degraded = providers.values().stream().anyMatch(state -> state != CircuitBreaker.State.CLOSED);
+
         Map<String, Object> result = new HashMap<>();
-        result.put("status", "UP");
+        result.put("status", degraded ? "DEGRADED" : "UP");
         result.put("timestamp", System.currentTimeMillis());
         result.put("channels", channelManager.getAllChannels().size());
+        result.put("providers", providers);
         return result;
     }
 
@@ -48,4 +57,12 @@ public class GatewayController {
                 .toList());
         return result;
     }
+
+    /**
+     * 当天 token 用量（按会话、用户、频道、模型）
+     */
+    @GetMapping("/usage")
+    public Map<String, Map<String, Map<String, Long>>> getUsage() {
+        return usageLedger.snapshot();
+    }
 }
@@ -2,7 +2,8 @@ package org.nanobot.api.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.nanobot.agent.AgentLoop;
+import org.nanobot.agent.AgentRouter;
+import org.nanobot.agent.SingleFlightProcessor;
 import org.nanobot.bus.MessageBus;
 import org.nanobot.model.Message;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -23,7 +25,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class MessageController {
 
-    private final AgentLoop agentLoop;
+    private final SingleFlightProcessor singleFlightProcessor;
+    private final AgentRouter agentRouter;
     private final MessageBus messageBus;
 
     /**
@@ -37,16 +40,22 @@ public class MessageController {
 
         log.info("Received message from API: {}", content);
 
-        Message message = Message.builder()
+        Map<String, Object> metadata = new HashMap<>();
+        if (request.containsKey(SingleFlightProcessor.CACHEABLE)) {
+            metadata.put(SingleFlightProcessor.CACHEABLE, request.get(SingleFlightProcessor.CACHEABLE));
+        }
+
+        Message message = agentRouter.route(Message.builder()
                 .id(UUID.randomUUID().toString())
                 .channelType(channelType)
                 .userId(userId)
                 .content(content)
                 .type(Message.MessageType.TEXT)
+                .metadata(metadata)
                 .timestamp(java.time.Instant.now())
-                .build();
+                .build());
 
-        return agentLoop.process(message)
+        return singleFlightProcessor.process(message)
                 .map(response -> Map.of(
                         "response", response,
                         "messageId", message.getId()
@@ -3,11 +3,11 @@ package org.nanobot.bus;
 import lombok.extern.slf4j.Slf4j;
 import org.nanobot.model.Message;
 import org.springframework.stereotype.Component;
+import reactor.core.Scannable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -90,13 +90,9 @@ public class ReactorMessageBus implements MessageBus {
     }
 
     /**
-     * 获取入站消息数量
+     * 获取入站缓冲中待消费的消息数量
      */
     public int getInboundBufferSize() {
-        return inboundSink.asFlux()
-                .collectList()
-                .map(List::size)
-                .blockOptional()
-                .orElse(0);
+        return inboundSink.scanOrDefault(Scannable.Attr.BUFFERED, 0);
     }
 }
@@ -3,6 +3,8 @@ package org.nanobot.channel;
 import org.nanobot.model.Message;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * 频道接口
  */
@@ -50,4 +52,13 @@ public interface Channel {
      * @return boolean
      */
     boolean isEnabled();
+
+    /**
+     * 频道调用的 API 地址，启动时用于预热连接
+     *
+     * @return List<String>
+     */
+    default List<String> getApiBaseUrls() {
+        return List.of();
+    }
 }
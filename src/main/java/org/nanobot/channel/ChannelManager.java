@@ -14,6 +14,7 @@ import reactor.core.publisher.Mono;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 频道管理器
@@ -26,6 +27,11 @@ public class ChannelManager {
     private final Map<String, Channel> channels = new ConcurrentHashMap<>();
     private final MessageBus messageBus;
 
+    /**
+     * 尚未完成的出站发送数
+     */
+    private final AtomicInteger pendingSends = new AtomicInteger();
+
     /**
      * 注册频道
      */
@@ -52,6 +58,17 @@ public class ChannelManager {
                 .doOnSuccess(v -> log.info("All channels started successfully"));
     }
 
+    /**
+     * 订阅出站消息并分发到对应频道
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeOutbound() {
+        messageBus.subscribeOutbound()
+                .filter(message -> message.getChannelType() != null)
+                .subscribe(this::dispatchOutbound,
+                        e -> log.error("Outbound dispatch stream terminated", e));
+    }
+
     /**
      * 停止所有频道
      */
@@ -77,14 +94,23 @@ public class ChannelManager {
                 .orElse(null);
 
         if (channel != null) {
+            pendingSends.incrementAndGet();
             channel.sendMessage(message)
                     .doOnError(e -> log.error("Failed to send message via channel: {}", channel.getType(), e))
+                    .doFinally(signal -> pendingSends.decrementAndGet())
                     .subscribe();
         } else {
             log.warn("No channel found for type: {}", message.getChannelType());
         }
     }
 
+    /**
+     * 获取尚未完成的出站发送数
+     */
+    public int getPendingSends() {
+        return pendingSends.get();
+    }
+
     /**
      * 获取所有频道
      */
@@ -13,6 +13,7 @@ import org.nanobot.bus.MessageBus;
 import org.nanobot.channel.Channel;
 import org.nanobot.config.ChannelsConfig.FeishuConfig;
 import org.nanobot.model.Message;
+import org.nanobot.runtime.BlockingSchedulers;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
@@ -33,6 +34,7 @@ public class FeishuChannel implements Channel {
     private final FeishuConfig feishuConfig;
     private final MessageBus messageBus;
     private final ObjectMapper objectMapper;
+    private final BlockingSchedulers blockingSchedulers;
 
     private com.lark.oapi.ws.Client wsClient;  // WebSocket client for receiving events
     private com.lark.oapi.Client apiClient; // HTTP client for sending messages
@@ -113,7 +115,7 @@ public class FeishuChannel implements Channel {
                 log.error("Failed to send Feishu message", e);
                 throw new RuntimeException(e);
             }
-        });
+        }).subscribeOn(blockingSchedulers.channel());
     }
 
     /**
@@ -12,6 +12,7 @@ import org.nanobot.bus.MessageBus;
 import org.nanobot.channel.Channel;
 import org.nanobot.config.ChannelsConfig.QQConfig;
 import org.nanobot.model.Message;
+import org.nanobot.runtime.BlockingSchedulers;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
@@ -19,6 +20,7 @@ import reactor.core.publisher.Mono;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -35,6 +37,7 @@ public class QQChannel implements Channel {
     private final MessageBus messageBus;
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final BlockingSchedulers blockingSchedulers;
 
     private static final String API_BASE = "https://api.sgroup.qq.com";
 
@@ -53,6 +56,11 @@ public class QQChannel implements Channel {
         return config.isEnabled();
     }
 
+    @Override
+    public List<String> getApiBaseUrls() {
+        return List.of(API_BASE);
+    }
+
     @Override
     public Mono<Void> start() {
         return Mono.fromRunnable(() -> {
@@ -81,7 +89,7 @@ public class QQChannel implements Channel {
                 log.error("Failed to send QQ message", e);
                 throw e;
             }
-        });
+        }).subscribeOn(blockingSchedulers.channel());
     }
 
     /**
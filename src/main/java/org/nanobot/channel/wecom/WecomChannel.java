@@ -12,6 +12,7 @@ import org.nanobot.bus.MessageBus;
 import org.nanobot.channel.Channel;
 import org.nanobot.config.ChannelsConfig.WecomConfig;
 import org.nanobot.model.Message;
+import org.nanobot.runtime.BlockingSchedulers;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
@@ -19,6 +20,7 @@ import reactor.core.publisher.Mono;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -35,6 +37,9 @@ public class WecomChannel implements Channel {
     private final MessageBus messageBus;
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final BlockingSchedulers blockingSchedulers;
+
+    private static final String API_BASE = "https://qyapi.weixin.qq.com";
 
     private String accessToken;
     private Instant tokenExpireTime;
@@ -54,6 +59,11 @@ public class WecomChannel implements Channel {
         return config.isEnabled();
     }
 
+    @Override
+    public List<String> getApiBaseUrls() {
+        return List.of(API_BASE);
+    }
+
     @Override
     public Mono<Void> start() {
         return Mono.fromRunnable(() -> {
@@ -85,7 +95,7 @@ public class WecomChannel implements Channel {
                 log.error("Failed to send WeCom message", e);
                 throw e;
             }
-        });
+        }).subscribeOn(blockingSchedulers.channel());
     }
 
     /**
@@ -94,7 +104,7 @@ public class WecomChannel implements Channel {
     private void refreshAccessToken() {
         try {
             String url = String.format(
-                    "https://qyapi.weixin.qq.com/cgi-bin/gettoken?corpid=%s&corpsecret=%s",
+                    API_BASE + "/cgi-bin/gettoken?corpid=%s&corpsecret=%s",
                     config.getCorpId(),
                     config.getSecret()
             );
@@ -141,7 +151,7 @@ public class WecomChannel implements Channel {
 
         String jsonBody = objectMapper.writeValueAsString(messageBody);
 
-        String url = "https://qyapi.weixin.qq.com/cgi-bin/message/send?access_token=" + accessToken;
+        String url = API_BASE + "/cgi-bin/message/send?access_token=" + accessToken;
 
         Request request = new Request.Builder()
                 .url(url)
@@ -4,7 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -15,6 +17,11 @@ import java.util.Map;
 @ConfigurationProperties(prefix = "nanobot.agents")
 public class AgentConfig {
 
+    /**
+     * 默认 Agent 名称
+     */
+    public static final String DEFAULT_AGENT = "default";
+
     /**
      * 默认 Agent 配置
      */
@@ -25,6 +32,24 @@ public class AgentConfig {
      */
     private Map<String, DefaultAgentConfig> agents = new HashMap<>();
 
+    /**
+     * 路由规则，按顺序匹配，未匹配的消息由默认 Agent 处理
+     */
+    private List<RouteRule> routes = new ArrayList<>();
+
+    /**
+     * 按名称获取 Agent 配置，未配置的名称返回默认 Agent
+     *
+     * @param name Agent 名称
+     * @return DefaultAgentConfig
+     */
+    public DefaultAgentConfig getAgent(String name) {
+        if (name == null || DEFAULT_AGENT.equals(name)) {
+            return defaultAgent;
+        }
+        return agents.getOrDefault(name, defaultAgent);
+    }
+
     @Data
     public static class DefaultAgentConfig {
         /**
@@ -32,6 +57,11 @@ public class AgentConfig {
          */
         private String model = "glm-4-flash";
 
+        /**
+         * 主模型重试后仍失败时按顺序尝试的备用模型
+         */
+        private List<String> fallbackModels = new ArrayList<>();
+
         /**
          * 工作区路径
          */
@@ -56,5 +86,82 @@ public class AgentConfig {
          * 系统提示词
          */
         private String systemPrompt;
+
+        /**
+         * 相同迭代（工具调用及结果完全一致）出现该次数时注入纠正提示
+         */
+        private int loopWarnRepeats = 2;
+
+        /**
+         * 相同迭代出现该次数时停止工具调用，直接要求模型作答
+         */
+        private int loopStopRepeats = 3;
+
+        /**
+         * 同时执行的最大轮次数
+         */
+        private int maxConcurrency = 4;
+
+        /**
+         * 等待执行的最大轮次数，超出时直接拒绝
+         */
+        private int maxQueued = 100;
+
+        /**
+         * 模型级联配置
+         */
+        private CascadeConfig cascade = new CascadeConfig();
+    }
+
+    /**
+     * 模型级联：简单轮次交给快速模型，必要时升级到主模型
+     */
+    @Data
+    public static class CascadeConfig {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 快速模型
+         */
+        private String fastModel = "glm-4-flash";
+
+        /**
+         * 分类模型，为空时只使用本地规则分类，规则无法判断的轮次按复杂处理
+         */
+        private String classifierModel;
+
+        /**
+         * 超过该长度的消息直接视为复杂
+         */
+        private int maxSimpleChars = 200;
+    }
+
+    /**
+     * 路由规则，配置的条件需全部满足
+     */
+    @Data
+    public static class RouteRule {
+        /**
+         * 目标 Agent 名称
+         */
+        private String agent;
+
+        /**
+         * 频道类型
+         */
+        private String channelType;
+
+        /**
+         * 会话ID (元数据中的 chat_id 或频道ID)
+         */
+        private String chatId;
+
+        /**
+         * 前缀命令，如 /code；匹配后从消息内容中去除
+         */
+        private String prefix;
     }
 }
@@ -0,0 +1,30 @@
+package org.nanobot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批量处理配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "nanobot.batch")
+public class BatchConfig {
+
+    /**
+     * 每个批量任务同时处理的条目数，应小于 Agent 资源池并发数 (默认 4)，为交互消息保留名额；
+     * 多个任务同时运行时总并发也不应超过资源池的等待队列
+     */
+    private int concurrency = 2;
+
+    /**
+     * 批量任务目录，为空时使用默认 Agent 工作区下的 batch 目录
+     */
+    private String directory;
+
+    /**
+     * 启动时是否继续未完成的批量任务
+     */
+    private boolean resumeOnStartup = true;
+}
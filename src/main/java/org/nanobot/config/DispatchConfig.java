@@ -0,0 +1,122 @@
+package org.nanobot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 入站消息分发配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "nanobot.dispatch")
+public class DispatchConfig {
+
+    /**
+     * 会话忙碌时的默认处理策略，默认排队，与未配置时的行为一致
+     */
+    private BusyPolicy busyPolicy = BusyPolicy.QUEUE;
+
+    /**
+     * 按频道类型覆盖的忙碌策略 (key 为 channelType)，用于逐个频道启用 SUPERSEDE
+     */
+    private Map<String, BusyPolicy> channelPolicies = new HashMap<>();
+
+    /**
+     * 连发消息合并配置
+     */
+    private CoalesceConfig coalesce = new CoalesceConfig();
+
+    /**
+     * 相同请求去重配置
+     */
+    private SingleFlightConfig singleFlight = new SingleFlightConfig();
+
+    /**
+     * 获取指定频道的忙碌策略
+     */
+    public BusyPolicy policyFor(String channelType) {
+        if (channelType == null) {
+            return busyPolicy;
+        }
+        return channelPolicies.getOrDefault(channelType, busyPolicy);
+    }
+
+    @Data
+    public static class CoalesceConfig {
+        /**
+         * 默认静默窗口：窗口内无新消息则提交合并结果；为 0 时不合并
+         */
+        private Duration window = Duration.ZERO;
+
+        /**
+         * 按频道类型覆盖的静默窗口 (key 为 channelType)，用于逐个频道启用合并
+         */
+        private Map<String, Duration> channelWindows = new HashMap<>();
+
+        /**
+         * 最长等待：自首条消息起超过该时长立即提交
+         */
+        private Duration maxWait = Duration.ofSeconds(5);
+
+        /**
+         * 获取指定频道的静默窗口，为 0 表示该频道不合并
+         */
+        public Duration windowFor(String channelType) {
+            Duration channelWindow = channelType != null ? channelWindows.get(channelType) : null;
+            return channelWindow != null ? channelWindow : window;
+        }
+
+        /**
+         * 是否有任一频道启用合并
+         */
+        public boolean anyEnabled() {
+            return window.isPositive() || channelWindows.values().stream().anyMatch(Duration::isPositive);
+        }
+    }
+
+    @Data
+    public static class SingleFlightConfig {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 视为可缓存的频道类型 (无状态 API、群聊等)
+         * 其他频道的消息可通过元数据 cacheable=true 单独标记
+         */
+        private List<String> channels = new ArrayList<>();
+
+        /**
+         * 回复缓存有效期
+         */
+        private Duration responseTtl = Duration.ofSeconds(30);
+
+        /**
+         * 回复缓存最大条目数
+         */
+        private int maxEntries = 1000;
+    }
+
+    /**
+     * 会话忙碌策略枚举
+     */
+    public enum BusyPolicy {
+        /**
+         * 排队，等待当前轮次结束后依次处理
+         */
+        QUEUE,
+        /**
+         * 取消当前轮次，将新旧消息合并后重新处理
+         * 当前轮次已执行有副作用的工具时改为排队
+         */
+        SUPERSEDE
+    }
+}
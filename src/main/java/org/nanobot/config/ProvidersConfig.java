@@ -4,6 +4,11 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Provider 配置
  */
@@ -32,11 +37,47 @@ public class ProvidersConfig {
      */
     private MoonshotConfig moonshot = new MoonshotConfig();
 
+    /**
+     * OpenRouter 配置
+     */
+    private OpenRouterConfig openrouter = new OpenRouterConfig();
+
+    /**
+     * OpenAI 兼容 Provider 的 HTTP 配置
+     */
+    private HttpConfig http = new HttpConfig();
+
+    /**
+     * 同一模型多 Provider 路由配置
+     */
+    private RoutingConfig routing = new RoutingConfig();
+
+    /**
+     * 模型调用容错配置
+     */
+    private ResilienceConfig resilience = new ResilienceConfig();
+
+    /**
+     * 客户端限流配置
+     */
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+
+    /**
+     * 响应缓存配置
+     */
+    private ResponseCacheConfig cache = new ResponseCacheConfig();
+
+    /**
+     * 提示词压缩配置
+     */
+    private CompactionConfig compaction = new CompactionConfig();
+
     @Data
     public static class GLMConfig {
         private boolean enabled = true;
         private String apiKey;
         private String baseUrl = "https://open.bigmodel.cn/api/paas/v4";
+        private boolean toolPassthrough = true;  // 只向智谱发送工具定义，工具调用交给 AgentLoop 执行
     }
 
     @Data
@@ -59,4 +100,177 @@ public class ProvidersConfig {
         private String apiKey;
         private String baseUrl = "https://api.moonshot.cn/v1";
     }
+
+    @Data
+    public static class OpenRouterConfig {
+        private boolean enabled = false;
+        private String apiKey;
+        private String baseUrl = "https://openrouter.ai/api/v1";
+    }
+
+    @Data
+    public static class HttpConfig {
+        /**
+         * 单次模型调用的超时时间（流式响应相邻数据块的最大间隔）
+         */
+        private Duration timeout = Duration.ofSeconds(120);
+    }
+
+    @Data
+    public static class RoutingConfig {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * EWMA 平滑系数，越大越偏向最近的调用
+         */
+        private double ewmaAlpha = 0.2;
+
+        /**
+         * 错误率随时间衰减的半衰期：错误集中爆发后排到末位、不再被调用的 Provider 也会逐渐恢复评分而重新被尝试，
+         * 为 0 时错误率只在调用成功时衰减
+         */
+        private Duration errorHalfLife = Duration.ofSeconds(30);
+
+        /**
+         * 是否启用对冲请求：首选 Provider 超过 p95 延迟仍未返回时，向次选 Provider 发出同样的请求；
+         * 流式调用按首个数据块耗时的 p95 计
+         */
+        private boolean hedge = false;
+
+        /**
+         * 对冲等待的最小延迟（样本不足时使用）
+         */
+        private Duration hedgeMinDelay = Duration.ofSeconds(2);
+
+        /**
+         * 模型名 → 可提供该模型的候选 Provider
+         */
+        private Map<String, List<RouteCandidate>> groups = new HashMap<>();
+    }
+
+    @Data
+    public static class ResilienceConfig {
+        private boolean enabled = true;
+        private double failureRateThreshold = 0.5;                // 窗口内失败率达到该值时熔断
+        private int minimumCalls = 10;                           // 计算失败率所需的最少调用数
+        private int windowSize = 20;                             // 统计最近的调用数
+        private Duration openDuration = Duration.ofSeconds(30);  // 熔断持续时间，之后放行一次试探调用
+        private int maxAttempts = 3;                             // 同一模型的最大尝试次数（含首次）
+        private Duration retryBaseDelay = Duration.ofMillis(200);
+        private Duration retryMaxDelay = Duration.ofSeconds(5);
+        private double retryBudgetRatio = 0.1;                   // 每次请求存入的重试额度，重试消耗 1
+        private int retryBudgetMax = 20;                         // 重试额度上限
+    }
+
+    @Data
+    public static class RateLimitConfig {
+        private boolean enabled = false;
+        private Duration interactiveDeadline = Duration.ofSeconds(30);  // 交互请求最长排队时间
+        private Duration scheduledDeadline = Duration.ofMinutes(2);     // 定时任务最长排队时间
+        private Duration batchDeadline = Duration.ofMinutes(10);        // 批量任务最长排队时间
+        private Map<String, ProviderLimit> providers = new HashMap<>();  // Provider 名称 → 配额，未配置的不限流
+    }
+
+    @Data
+    public static class ProviderLimit {
+        private int requestsPerMinute;  // RPM，0 表示不限制
+        private int tokensPerMinute;    // TPM（按估算的提示词 token 计），0 表示不限制
+    }
+
+    @Data
+    public static class RouteCandidate {
+        private String provider;  // ProviderRegistry 中的 Provider 名称
+        private String model;     // 发给该 Provider 的模型名
+    }
+
+    @Data
+    public static class ResponseCacheConfig {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 内存 LRU 最大条目数
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * 磁盘持久化配置
+         */
+        private DiskCacheConfig disk = new DiskCacheConfig();
+
+        /**
+         * 按调用方配置的缓存策略 (key 为调用方标识，default 为兜底策略)
+         */
+        private Map<String, CachePolicy> callers = new HashMap<>();
+    }
+
+    @Data
+    public static class CompactionConfig {
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 相同的工具结果只保留第一次，之后改为引用
+         */
+        private boolean dedupeToolResults = true;
+
+        /**
+         * 参与去重的工具结果最小长度（字符），过短的结果引用反而更长
+         */
+        private int dedupeMinLength = 200;
+
+        /**
+         * 压缩 JSON 格式的工具结果
+         */
+        private boolean minifyJson = true;
+
+        /**
+         * 折叠代码块以外的多余空白
+         */
+        private boolean collapseWhitespace = true;
+
+        /**
+         * 省略之后被 write_file 覆盖的文件读取结果
+         * 省略会改写已发送过的历史消息，使之后的提示词前缀与上一次调用不同，Provider 侧的前缀缓存从该处失效；
+         * 只有读取结果很大且写入频繁、节省的 token 多于缓存损失时才值得开启
+         */
+        private boolean elideStaleReads = false;
+
+        /**
+         * 最近若干条消息中的读取结果不省略：省略只发生在较早的历史上，前缀每条读取结果至多变化一次
+         */
+        private int elideStaleReadsKeepRecent = 20;
+    }
+
+    @Data
+    public static class DiskCacheConfig {
+        private boolean enabled = false;
+        private String path = System.getProperty("user.home") + "/.nanobot/cache/responses.bin";
+        private int sizeMb = 64;
+    }
+
+    @Data
+    public static class CachePolicy {
+        /**
+         * 是否缓存该调用方的请求
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存有效期
+         */
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * 是否允许缓存包含有副作用工具调用的响应
+         */
+        private boolean allowSideEffects = false;
+    }
 }
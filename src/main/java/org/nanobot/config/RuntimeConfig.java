@@ -0,0 +1,177 @@
+package org.nanobot.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 运行时配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "nanobot.runtime")
+public class RuntimeConfig {
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 阻塞任务的线程模式
+     */
+    private ThreadMode threadMode = ThreadMode.PLATFORM;
+
+    /**
+     * 阻塞调用检测模式
+     */
+    private BlockHoundMode blockHound = BlockHoundMode.OFF;
+
+    /**
+     * 模型调用调度器
+     */
+    private SchedulerConfig llm = new SchedulerConfig(10 * CORES, 10000);
+
+    /**
+     * 工具执行调度器
+     */
+    private SchedulerConfig tool = new SchedulerConfig(4 * CORES, 10000);
+
+    /**
+     * 磁盘读写调度器（会话、上下文、检查点）
+     */
+    private SchedulerConfig disk = new SchedulerConfig(2 * CORES, 10000);
+
+    /**
+     * 频道消息发送调度器
+     */
+    private SchedulerConfig channel = new SchedulerConfig(4 * CORES, 10000);
+
+    /**
+     * 停机排空配置
+     */
+    private ShutdownConfig shutdown = new ShutdownConfig();
+
+    /**
+     * 共享 HTTP 传输层配置
+     */
+    private HttpConfig http = new HttpConfig();
+
+    /**
+     * 调度器容量配置（仅 PLATFORM 模式生效）
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SchedulerConfig {
+        /**
+         * 最大线程数
+         */
+        private int threadCap;
+
+        /**
+         * 每个线程的最大排队任务数
+         */
+        private int queueCap;
+    }
+
+    /**
+     * 停机排空配置
+     */
+    @Data
+    public static class ShutdownConfig {
+        /**
+         * 等待执行中轮次和出站发送完成的最长时间，超时后未完成的轮次由检查点在下次启动时恢复
+         */
+        private Duration drainTimeout = Duration.ofSeconds(25);
+    }
+
+    /**
+     * 共享 HTTP 传输层配置（OkHttp 和 Reactor Netty 两个客户端共用）
+     */
+    @Data
+    public static class HttpConfig {
+        /**
+         * 是否启用 HTTP/2（https 地址通过 TLS ALPN 协商，不支持时回退 HTTP/1.1；http 地址始终使用 HTTP/1.1）
+         */
+        private boolean http2 = true;
+
+        /**
+         * 每个主机的最大连接数（HTTP/2 下多个请求复用同一连接）
+         */
+        private int maxConnectionsPerHost = 64;
+
+        /**
+         * OkHttp 连接池保留的最大空闲连接数
+         */
+        private int maxIdleConnections = 32;
+
+        /**
+         * 空闲连接保活时间，应小于上游负载均衡的空闲超时（通常 60s），避免复用已被对端关闭的连接
+         */
+        private Duration keepAlive = Duration.ofSeconds(50);
+
+        /**
+         * 连接最长存活时间，到期后重建以跟随 DNS 变化
+         */
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+
+        /**
+         * HTTP/2 心跳间隔，及时发现失效连接
+         */
+        private Duration pingInterval = Duration.ofSeconds(30);
+
+        /**
+         * 建立连接超时
+         */
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /**
+         * 连接池耗尽时等待可用连接的最长时间
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+
+        /**
+         * DNS 解析结果缓存时间
+         */
+        private Duration dnsCacheTtl = Duration.ofSeconds(60);
+
+        /**
+         * 启动后是否预先建立到已启用 Provider 和频道主机的连接
+         */
+        private boolean warmup = true;
+    }
+
+    /**
+     * 线程模式枚举
+     */
+    public enum ThreadMode {
+        /**
+         * 有界弹性平台线程池
+         */
+        PLATFORM,
+        /**
+         * 每任务一个虚拟线程 (需要 Java 21+，低版本自动回退到 PLATFORM)
+         */
+        VIRTUAL
+    }
+
+    /**
+     * 阻塞调用检测模式枚举
+     */
+    public enum BlockHoundMode {
+        /**
+         * 不检测
+         */
+        OFF,
+        /**
+         * 记录日志和指标
+         */
+        LOG,
+        /**
+         * 抛出 BlockingOperationError
+         */
+        FAIL
+    }
+}
@@ -4,7 +4,10 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 工具配置
@@ -39,6 +42,26 @@ public class ToolsConfig {
      */
     private WebSearchConfig webSearch = new WebSearchConfig();
 
+    /**
+     * 子 Agent 工具配置
+     */
+    private SubagentConfig subagents = new SubagentConfig();
+
+    /**
+     * 大文件 Map-Reduce 工具配置
+     */
+    private MapReduceConfig mapReduce = new MapReduceConfig();
+
+    /**
+     * 每轮工具子集选择配置
+     */
+    private SelectionConfig selection = new SelectionConfig();
+
+    /**
+     * 工具输出截断配置
+     */
+    private OutputConfig output = new OutputConfig();
+
     @Data
     public static class FileConfig {
         private boolean enabled = true;
@@ -59,4 +82,49 @@ public class ToolsConfig {
         private String apiKey;
         private int maxResults = 5;
     }
+
+    @Data
+    public static class SubagentConfig {
+        private boolean enabled = true;
+        private int maxConcurrency = 8;         // 全局同时运行的子 Agent 数
+        private int maxQueued = 64;             // 全局等待执行的子 Agent 数，超出时该次调用失败
+        private int maxTasks = 16;              // 单次调用最多子任务数
+        private int maxIterations = 5;          // 每个子 Agent 的最大迭代次数
+        private int tokenBudget = 60000;        // 父 Agent 单个轮次内全部子 Agent 的估算 token 预算
+        private int maxResultChars = 2000;      // 每个子任务返回给父 Agent 的最大字符数
+    }
+
+    @Data
+    public static class MapReduceConfig {
+        private boolean enabled = true;
+        private String model;                   // 分段调用使用的模型，为空时使用当前 Agent 的模型
+        private int chunkBytes = 24 * 1024;     // 每段字节数（按行边界切分）
+        private int maxChunkBytes = 128 * 1024; // 文件超过 chunkBytes * maxChunks 时每段放大到的上限
+        private int maxConcurrency = 8;         // 同时进行的模型调用数
+        private int reduceFanIn = 8;            // 每次合并的局部回答数
+        private int maxChunks = 2000;           // 单个文件最多分段数，超出时放大每段字节数
+    }
+
+    @Data
+    public static class SelectionConfig {
+        private boolean enabled = true;
+        private List<String> alwaysInclude = List.of();  // 始终提供的工具
+        private int stickySize = 5;             // 每个会话保留的最近使用工具数
+        private int maxSessions = 10000;        // 记录最近使用工具的会话数上限
+    }
+
+    @Data
+    public static class OutputConfig {
+        private boolean enabled = true;
+        private int maxChars = 8000;            // 单次工具输出放入上下文的最大字符数
+        private Map<String, Integer> perTool = new HashMap<>();  // 按工具覆盖 maxChars
+        private double headRatio = 0.6;         // 截断时保留开头部分的比例，其余保留结尾
+        private String spillDir = ".tool-output";  // 完整输出的保存目录（相对工作区）
+        private Duration spillRetention = Duration.ofDays(7);  // 保存的完整输出的保留时长
+        private int spillMaxMb = 256;           // 保存目录的总大小上限，超出时删除最早的文件
+
+        public int limitFor(String toolName) {
+            return perTool.getOrDefault(toolName, maxChars);
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package org.nanobot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token 用量计量配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "nanobot.usage")
+public class UsageConfig {
+
+    /**
+     * 是否启用用量计量
+     */
+    private boolean enabled = true;
+
+    /**
+     * 用量写盘间隔
+     */
+    private Duration flushInterval = Duration.ofMinutes(1);
+
+    /**
+     * 用量文件目录，为空时使用默认 Agent 工作区下的 usage 目录
+     */
+    private String directory;
+
+    /**
+     * 每日预算
+     */
+    private BudgetConfig budget = new BudgetConfig();
+
+    /**
+     * 每日 token 预算（输入 + 输出），0 表示不限制
+     */
+    @Data
+    public static class BudgetConfig {
+        /**
+         * 每个用户的每日预算
+         */
+        private long userDailyTokens = 0;
+
+        /**
+         * 每个会话的每日预算
+         */
+        private long sessionDailyTokens = 0;
+
+        /**
+         * 按用户ID覆盖的每日预算
+         */
+        private Map<String, Long> users = new HashMap<>();
+
+        /**
+         * 超出预算时的处理方式
+         */
+        private BudgetAction action = BudgetAction.BLOCK;
+
+        /**
+         * DOWNGRADE 时改用的模型
+         */
+        private String downgradeModel = "glm-4-flash";
+    }
+
+    /**
+     * 超出预算的处理方式枚举
+     */
+    public enum BudgetAction {
+        /**
+         * 拒绝新的轮次
+         */
+        BLOCK,
+        /**
+         * 改用低成本模型
+         */
+        DOWNGRADE
+    }
+}
@@ -0,0 +1,123 @@
+package org.nanobot.provider;
+
+import org.nanobot.model.ToolCall;
+import org.nanobot.provider.ChatProvider.ChatResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 流式响应的数据块
+ * 文本增量、按 index 拼接的工具调用增量、结束原因和用量分别到达，任一字段都可能为空
+ *
+ * @param text          文本增量
+ * @param toolCalls     工具调用增量
+ * @param finishReason  结束原因 (stop / tool_calls / length 等)，仅在最后的数据块中出现
+ * @param usage         token 用量，仅在最后的数据块中出现
+ */
+public record ChatChunk(String text, List<ToolCallDelta> toolCalls, String finishReason, TokenUsage usage) {
+
+    /**
+     * 工具调用增量：同一 index 的 id、名称和参数片段按到达顺序拼接
+     *
+     * @param index     工具调用序号
+     * @param id        工具调用ID（通常只在第一个片段中出现）
+     * @param name      函数名片段
+     * @param arguments 参数 JSON 片段
+     */
+    public record ToolCallDelta(int index, String id, String name, String arguments) {
+    }
+
+    public static ChatChunk text(String text) {
+        return new ChatChunk(text, List.of(), null, null);
+    }
+
+    public boolean hasText() {
+        return text != null && !text.isEmpty();
+    }
+
+    /**
+     * 将完整响应转换为单个数据块，供不支持流式的实现和缓存命中使用
+     */
+    public static ChatChunk of(ChatResponse response) {
+        List<ToolCallDelta> deltas = new ArrayList<>();
+        if (response.hasToolCalls()) {
+            List<ToolCall> calls = response.getToolCalls();
+            for (int i = 0; i < calls.size(); i++) {
+                ToolCall call = calls.get(i);
+                deltas.add(new ToolCallDelta(i, call.getId(), call.getFunctionName(), call.getArguments()));
+            }
+        }
+        return new ChatChunk(response.getContent(), deltas,
+                response.hasToolCalls() ? "tool_calls" : "stop", response.getUsage());
+    }
+
+    /**
+     * 聚合数据流为完整响应
+     */
+    public static Mono<ChatResponse> collect(Flux<ChatChunk> chunks) {
+        return Mono.defer(() -> {
+            Accumulator accumulator = new Accumulator();
+            return chunks.doOnNext(accumulator::accept)
+                    .then(Mono.fromCallable(accumulator::toResponse));
+        });
+    }
+
+    /**
+     * 流式响应聚合：拼接文本增量，按 index 拼接工具调用的 id、名称和参数片段
+     */
+    public static class Accumulator {
+        private final StringBuilder content = new StringBuilder();
+        private final Map<Integer, ToolCallBuilder> toolCalls = new TreeMap<>();
+        private TokenUsage usage;
+
+        public void accept(ChatChunk chunk) {
+            if (chunk.text() != null) {
+                content.append(chunk.text());
+            }
+            if (chunk.toolCalls() != null) {
+                for (ToolCallDelta delta : chunk.toolCalls()) {
+                    ToolCallBuilder call = toolCalls.computeIfAbsent(delta.index(), k -> new ToolCallBuilder());
+                    if (delta.id() != null) {
+                        call.id = delta.id();
+                    }
+                    if (delta.name() != null) {
+                        call.name.append(delta.name());
+                    }
+                    if (delta.arguments() != null) {
+                        call.arguments.append(delta.arguments());
+                    }
+                }
+            }
+            if (chunk.usage() != null) {
+                usage = chunk.usage();
+            }
+        }
+
+        public ChatResponse toResponse() {
+            if (toolCalls.isEmpty()) {
+                return ChatResponse.text(content.toString()).withUsage(usage);
+            }
+            List<ToolCall> calls = new ArrayList<>();
+            for (ToolCallBuilder call : toolCalls.values()) {
+                calls.add(ToolCall.builder()
+                        .id(call.id)
+                        .type("function")
+                        .functionName(call.name.toString())
+                        .arguments(call.arguments.length() > 0 ? call.arguments.toString() : "{}")
+                        .build());
+            }
+            return ChatResponse.withToolCalls(content.toString(), calls).withUsage(usage);
+        }
+    }
+
+    private static class ToolCallBuilder {
+        private String id;
+        private final StringBuilder name = new StringBuilder();
+        private final StringBuilder arguments = new StringBuilder();
+    }
+}
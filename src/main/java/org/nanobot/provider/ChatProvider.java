@@ -23,7 +23,32 @@ public interface ChatProvider {
     Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools);
 
     /**
-     * 流式聊天
+     * 发送聊天请求（指定模型参数）
+     *
+     * @param messages 消息列表
+     * @param tools    工具列表
+     * @param options  模型参数
+     * @return ChatResponse
+     */
+    default Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return chat(messages, tools);
+    }
+
+    /**
+     * 流式聊天，数据块携带文本增量、工具调用增量、结束原因和用量
+     * 默认实现等待完整响应后作为单个数据块返回
+     *
+     * @param messages 消息列表
+     * @param tools    工具列表
+     * @param options  模型参数
+     * @return Flux<ChatChunk>
+     */
+    default Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return chat(messages, tools, options).map(ChatChunk::of).flux();
+    }
+
+    /**
+     * 流式聊天（仅文本）
      *
      * @param messages 消息列表
      * @param tools    工具列表
@@ -37,6 +62,7 @@ public interface ChatProvider {
     class ChatResponse {
         private String content;
         private List<ToolCall> toolCalls;
+        private TokenUsage usage;
 
         public ChatResponse(String content, List<ToolCall> toolCalls) {
             this.content = content;
@@ -51,6 +77,21 @@ public interface ChatProvider {
             return toolCalls;
         }
 
+        /**
+         * Provider 返回的 token 用量，未返回时为 null
+         */
+        public TokenUsage getUsage() {
+            return usage;
+        }
+
+        /**
+         * 附加 token 用量
+         */
+        public ChatResponse withUsage(TokenUsage usage) {
+            this.usage = usage;
+            return this;
+        }
+
         public boolean hasToolCalls() {
             return toolCalls != null && !toolCalls.isEmpty();
         }
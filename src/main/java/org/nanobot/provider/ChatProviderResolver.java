@@ -0,0 +1,155 @@
+package org.nanobot.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.ProvidersConfig;
+import org.nanobot.provider.impl.OpenAiCompatibleChatProvider;
+import org.nanobot.provider.impl.ZhipuAiChatProvider;
+import org.nanobot.provider.ratelimit.RateLimiterRegistry;
+import org.nanobot.provider.registry.ProviderRegistry;
+import org.nanobot.provider.resilience.CircuitBreakerRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按模型名选择 ChatProvider
+ * 通过 ProviderRegistry.matchByModel 匹配 ProviderSpec；GLM 优先使用 Spring AI 智谱实现，
+ * 其余配置了 API Key 的 Provider 使用 OpenAI 兼容实现；每个 Provider 带独立熔断器和限流器。
+ * 模型匹配到未配置的 Provider 时直接报错，不回退到智谱
+ */
+@Slf4j
+@Component
+public class ChatProviderResolver {
+
+    private final ProviderRegistry providerRegistry;
+    private final Optional<ChatProvider> zhipuAiChatProvider;
+
+    /**
+     * OpenAI 兼容 Provider (Provider 名称 → 实现)
+     */
+    private final Map<String, ChatProvider> providers = new LinkedHashMap<>();
+
+    /**
+     * OpenAI 兼容 Provider 的访问地址 (Provider 名称 → baseUrl)
+     */
+    private final Map<String, String> baseUrls = new LinkedHashMap<>();
+
+    /**
+     * 已提示过未匹配任何 Provider 的模型名，每个模型只告警一次
+     */
+    private final Set<String> unmatchedModels = ConcurrentHashMap.newKeySet();
+
+    public ChatProviderResolver(ProviderRegistry providerRegistry,
+                                ProvidersConfig providersConfig,
+                                Optional<ZhipuAiChatProvider> zhipuAiChatProvider,
+                                WebClient.Builder webClientBuilder,
+                                ObjectMapper objectMapper,
+                                CircuitBreakerRegistry circuitBreakerRegistry,
+                                RateLimiterRegistry rateLimiterRegistry) {
+        this.providerRegistry = providerRegistry;
+        // 熔断在外层：熔断期间的请求直接失败，不占用限流队列
+        String defaultName = providerRegistry.getDefaultProvider().getName();
+        this.zhipuAiChatProvider = zhipuAiChatProvider.map(provider -> circuitBreakerRegistry.protect(
+                defaultName, rateLimiterRegistry.limit(defaultName, provider)));
+
+        for (ProviderSpec spec : providerRegistry.getAllProviders()) {
+            Endpoint endpoint = endpoint(providersConfig, spec);
+            if (endpoint.enabled() && endpoint.apiKey() != null && !endpoint.apiKey().isBlank()) {
+                ChatProvider provider = new OpenAiCompatibleChatProvider(spec, endpoint.baseUrl(), endpoint.apiKey(),
+                        webClientBuilder.clone(), objectMapper, providersConfig.getHttp().getTimeout(),
+                        rateLimiterRegistry.headerListener(spec.getName()));
+                providers.put(spec.getName(), circuitBreakerRegistry.protect(spec.getName(),
+                        rateLimiterRegistry.limit(spec.getName(), provider)));
+                baseUrls.put(spec.getName(), endpoint.baseUrl());
+            }
+        }
+        log.info("OpenAI-compatible providers configured: {}", providers.keySet());
+    }
+
+    /**
+     * 选择模型对应的 Provider
+     *
+     * @param model 模型名称，为空时使用默认 Provider
+     * @return ChatProvider
+     */
+    public ChatProvider resolve(String model) {
+        ProviderSpec spec = model == null || model.isBlank()
+                ? providerRegistry.getDefaultProvider()
+                : providerRegistry.matchByModel(model);
+
+        if (spec == providerRegistry.getDefaultProvider()) {
+            if (model != null && !model.isBlank() && !spec.matchesModel(model) && unmatchedModels.add(model)) {
+                log.warn("Model {} matches no provider, sending it to the default provider {}", model, spec.getName());
+            }
+            if (zhipuAiChatProvider.isPresent()) {
+                return zhipuAiChatProvider.get();
+            }
+        }
+        ChatProvider provider = providers.get(spec.getName());
+        if (provider == null) {
+            throw new IllegalStateException("No provider configured for model " + model + " (" + spec.getName()
+                    + "): set its API key or enable it under nanobot.providers");
+        }
+        return provider;
+    }
+
+    /**
+     * 按 Provider 名称获取实现，未配置时报错（不回退到智谱）
+     *
+     * @param name Provider 名称
+     * @return ChatProvider
+     */
+    public ChatProvider provider(String name) {
+        ProviderSpec spec = providerRegistry.getByName(name);
+        if (spec == null) {
+            throw new IllegalArgumentException("Unknown provider: " + name);
+        }
+        if (spec == providerRegistry.getDefaultProvider() && zhipuAiChatProvider.isPresent()) {
+            return zhipuAiChatProvider.get();
+        }
+        ChatProvider provider = providers.get(spec.getName());
+        if (provider == null) {
+            throw new IllegalStateException("Provider not configured: " + name);
+        }
+        return provider;
+    }
+
+    /**
+     * 已配置的 OpenAI 兼容 Provider 访问地址
+     *
+     * @return Provider 名称 → baseUrl
+     */
+    public Map<String, String> getBaseUrls() {
+        return Collections.unmodifiableMap(baseUrls);
+    }
+
+    /**
+     * Provider 的访问地址和 API Key：优先使用配置，没有配置时读取 ProviderSpec 的环境变量
+     */
+    private Endpoint endpoint(ProvidersConfig config, ProviderSpec spec) {
+        Endpoint configured = switch (spec.getName()) {
+            case "glm" -> new Endpoint(config.getGlm().isEnabled(), config.getGlm().getApiKey(), config.getGlm().getBaseUrl());
+            case "deepseek" -> new Endpoint(config.getDeepseek().isEnabled(), config.getDeepseek().getApiKey(), config.getDeepseek().getBaseUrl());
+            case "qwen" -> new Endpoint(config.getQwen().isEnabled(), config.getQwen().getApiKey(), config.getQwen().getBaseUrl());
+            case "moonshot" -> new Endpoint(config.getMoonshot().isEnabled(), config.getMoonshot().getApiKey(), config.getMoonshot().getBaseUrl());
+            case "openrouter" -> new Endpoint(config.getOpenrouter().isEnabled(), config.getOpenrouter().getApiKey(), config.getOpenrouter().getBaseUrl());
+            default -> new Endpoint(true, null, null);
+        };
+
+        String apiKey = configured.apiKey() != null && !configured.apiKey().isBlank()
+                ? configured.apiKey()
+                : spec.getEnvKey() != null ? System.getenv(spec.getEnvKey()) : null;
+        String baseUrl = configured.baseUrl() != null ? configured.baseUrl() : spec.getBaseUrl();
+        return new Endpoint(configured.enabled(), apiKey, baseUrl);
+    }
+
+    private record Endpoint(boolean enabled, String apiKey, String baseUrl) {
+    }
+}
@@ -0,0 +1,99 @@
+package org.nanobot.provider;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * 模型调用的请求上下文
+ * 通过 Reactor Context 从调用方传递到 Provider 层（缓存、限流、计量等装饰器）
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatRequestContext {
+
+    /**
+     * 空上下文
+     */
+    public static final ChatRequestContext EMPTY = new ChatRequestContext();
+
+    /**
+     * 调用方标识 (频道类型、scheduler、batch 等)
+     */
+    private String caller;
+
+    /**
+     * 会话ID
+     */
+    private String sessionId;
+
+    /**
+     * 用户ID
+     */
+    private String userId;
+
+    /**
+     * 频道类型
+     */
+    private String channelType;
+
+    /**
+     * 处理请求的 Agent 名称
+     */
+    private String agent;
+
+    /**
+     * 请求优先级，为空时按交互请求处理
+     */
+    private Priority priority;
+
+    /**
+     * 转换为 Reactor Context
+     */
+    public Context asContext() {
+        return Context.of(ChatRequestContext.class, this);
+    }
+
+    /**
+     * 从 Reactor Context 读取请求上下文
+     */
+    public static ChatRequestContext from(ContextView context) {
+        return context.getOrDefault(ChatRequestContext.class, EMPTY);
+    }
+
+    /**
+     * 请求优先级，排队时高优先级先出队
+     */
+    public enum Priority {
+        /**
+         * 用户在线等待的对话
+         */
+        INTERACTIVE,
+        /**
+         * 定时任务
+         */
+        SCHEDULED,
+        /**
+         * 批量任务
+         */
+        BATCH;
+
+        /**
+         * 按调用方标识推断优先级
+         */
+        public static Priority fromCaller(String caller) {
+            if ("batch".equals(caller)) {
+                return BATCH;
+            }
+            if ("scheduler".equals(caller)) {
+                return SCHEDULED;
+            }
+            return INTERACTIVE;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.nanobot.provider;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单次模型调用参数
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModelOptions {
+
+    /**
+     * 模型名称，为空时使用 Provider 默认模型
+     */
+    private String model;
+
+    /**
+     * 温度参数，为空时使用 Provider 默认值
+     */
+    private Double temperature;
+
+    /**
+     * 创建指定模型的调用参数
+     */
+    public static ModelOptions of(String model, Double temperature) {
+        return ModelOptions.builder()
+                .model(model)
+                .temperature(temperature)
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package org.nanobot.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.AgentConfig;
+import org.nanobot.config.ProvidersConfig;
+import org.nanobot.config.ProvidersConfig.DiskCacheConfig;
+import org.nanobot.config.ProvidersConfig.ResponseCacheConfig;
+import org.nanobot.config.UsageConfig;
+import org.nanobot.provider.cache.CachingChatProvider;
+import org.nanobot.provider.cache.MappedResponseStore;
+import org.nanobot.provider.compaction.CompactingChatProvider;
+import org.nanobot.provider.resilience.CircuitBreakerRegistry;
+import org.nanobot.provider.resilience.ResilientChatProvider;
+import org.nanobot.provider.usage.MeteringChatProvider;
+import org.nanobot.provider.usage.UsageLedger;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Provider 装配
+ * 在具体 Provider 实现外层按配置叠加装饰器
+ */
+@Slf4j
+@Configuration
+public class ProviderConfiguration {
+
+    /**
+     * Agent 使用的 ChatProvider，按模型名路由到具体 Provider
+     */
+    @Bean
+    @Primary
+    public ChatProvider chatProvider(ChatProviderResolver chatProviderResolver,
+                                     CircuitBreakerRegistry circuitBreakerRegistry,
+                                     ProvidersConfig providersConfig,
+                                     AgentConfig agentConfig,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry,
+                                     UsageConfig usageConfig,
+                                     UsageLedger usageLedger) {
+        ChatProvider provider = new RoutingChatProvider(chatProviderResolver, providersConfig.getRouting(),
+                meterRegistry, circuitBreakerRegistry);
+
+        // 计量在重试内层：每次成功的调用按实际模型记账，缓存命中不计
+        if (usageConfig.isEnabled()) {
+            provider = new MeteringChatProvider(provider, usageLedger);
+        }
+
+        if (providersConfig.getResilience().isEnabled()) {
+            provider = new ResilientChatProvider(provider, providersConfig.getResilience(), agentConfig, meterRegistry);
+        }
+
+        ResponseCacheConfig cacheConfig = providersConfig.getCache();
+        if (cacheConfig.isEnabled()) {
+            provider = new CachingChatProvider(provider, cacheConfig, objectMapper, meterRegistry,
+                    openDiskStore(cacheConfig.getDisk()));
+            log.info("Response cache enabled (disk: {})", cacheConfig.getDisk().isEnabled());
+        }
+
+        // 压缩在最外层，缓存键基于压缩后的提示词
+        if (providersConfig.getCompaction().isEnabled()) {
+            provider = new CompactingChatProvider(provider, providersConfig.getCompaction(), meterRegistry);
+        }
+
+        return provider;
+    }
+
+    /**
+     * 打开磁盘缓存，失败时仅使用内存缓存
+     */
+    private MappedResponseStore openDiskStore(DiskCacheConfig diskConfig) {
+        if (!diskConfig.isEnabled()) {
+            return null;
+        }
+        try {
+            return new MappedResponseStore(Paths.get(diskConfig.getPath()), diskConfig.getSizeMb() * 1024 * 1024);
+        } catch (IOException e) {
+            log.warn("Failed to open response store {}, falling back to memory only", diskConfig.getPath(), e);
+            return null;
+        }
+    }
+}
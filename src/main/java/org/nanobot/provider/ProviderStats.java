@@ -0,0 +1,147 @@
+package org.nanobot.provider;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 单个 Provider 的调用统计
+ * 延迟和错误率使用指数加权移动平均 (EWMA)，错误率另按半衰期随时间衰减，p95 基于最近一段时间的延迟样本；
+ * 流式调用的首个数据块耗时单独采样，供流式对冲使用
+ */
+public class ProviderStats {
+
+    /**
+     * 计算分位数保留的样本数
+     */
+    private static final int WINDOW = 128;
+
+    /**
+     * 错误率折算时的最小成功率，避免评分无穷大
+     */
+    private static final double MIN_SUCCESS_RATE = 0.05;
+
+    private final String provider;
+    private final double alpha;
+    private final long errorHalfLifeNanos;
+    private final Window latencies = new Window();
+    private final Window firstChunkLatencies = new Window();
+    private double ewmaLatencyMillis;
+    private double errorRate;
+    private long errorRateUpdated = System.nanoTime();
+    private boolean sampled;
+
+    public ProviderStats(String provider, double alpha, Duration errorHalfLife, MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.alpha = alpha;
+        this.errorHalfLifeNanos = errorHalfLife != null ? errorHalfLife.toNanos() : 0;
+        Gauge.builder("nanobot.provider.latency.ewma", this, ProviderStats::getEwmaLatencyMillis)
+                .description("EWMA model call latency in milliseconds")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("nanobot.provider.error_rate", this, ProviderStats::getErrorRate)
+                .description("EWMA model call error rate")
+                .tag("provider", provider)
+                .register(meterRegistry);
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * 记录一次成功调用
+     */
+    public synchronized void recordSuccess(long latencyMillis) {
+        ewmaLatencyMillis = sampled ? ewmaLatencyMillis + alpha * (latencyMillis - ewmaLatencyMillis) : latencyMillis;
+        errorRate = decayedErrorRate() * (1 - alpha);
+        errorRateUpdated = System.nanoTime();
+        sampled = true;
+        latencies.add(latencyMillis);
+    }
+
+    /**
+     * 记录一次流式调用收到首个数据块的耗时
+     */
+    public synchronized void recordFirstChunk(long latencyMillis) {
+        firstChunkLatencies.add(latencyMillis);
+    }
+
+    /**
+     * 记录一次失败调用
+     */
+    public synchronized void recordError() {
+        double current = decayedErrorRate();
+        errorRate = current + alpha * (1 - current);
+        errorRateUpdated = System.nanoTime();
+    }
+
+    /**
+     * 评分：期望的成功耗时，越小越好；尚无样本的 Provider 评分为 0，优先试探
+     */
+    public synchronized double score() {
+        if (!sampled) {
+            return 0;
+        }
+        return ewmaLatencyMillis / Math.max(1 - decayedErrorRate(), MIN_SUCCESS_RATE);
+    }
+
+    /**
+     * 最近样本的 p95 延迟，没有样本时返回 -1
+     */
+    public synchronized long p95Millis() {
+        return latencies.p95();
+    }
+
+    /**
+     * 最近流式调用首个数据块耗时的 p95，没有样本时返回 -1
+     */
+    public synchronized long firstChunkP95Millis() {
+        return firstChunkLatencies.p95();
+    }
+
+    public synchronized double getEwmaLatencyMillis() {
+        return ewmaLatencyMillis;
+    }
+
+    public synchronized double getErrorRate() {
+        return decayedErrorRate();
+    }
+
+    /**
+     * 按距上次更新的时间衰减后的错误率
+     */
+    private double decayedErrorRate() {
+        if (errorHalfLifeNanos <= 0 || errorRate == 0) {
+            return errorRate;
+        }
+        double halfLives = (double) (System.nanoTime() - errorRateUpdated) / errorHalfLifeNanos;
+        return errorRate * Math.pow(0.5, halfLives);
+    }
+
+    /**
+     * 最近 WINDOW 个延迟样本的环形缓冲
+     */
+    private static class Window {
+        private final long[] samples = new long[WINDOW];
+        private int count;
+        private int next;
+
+        void add(long latencyMillis) {
+            samples[next] = latencyMillis;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+        }
+
+        long p95() {
+            if (count == 0) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(count * 0.95) - 1];
+        }
+    }
+}
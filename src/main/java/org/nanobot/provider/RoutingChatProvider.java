@@ -0,0 +1,215 @@
+package org.nanobot.provider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.ProvidersConfig.RouteCandidate;
+import org.nanobot.config.ProvidersConfig.RoutingConfig;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.provider.resilience.CircuitBreakerRegistry;
+import org.nanobot.tool.Tool;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 按模型名路由的 ChatProvider
+ * 每次调用根据 ModelOptions.model 选择实际的 Provider，Agent、级联、子任务等调用方统一经由此处。
+ * 配置了多个候选 Provider 的模型按 EWMA 延迟和错误率选择最优者；启用对冲时，
+ * 首选 Provider 超过其 p95 延迟仍未返回则向次选 Provider 发出同样的请求，先返回者胜出，另一方被取消；
+ * 非流式调用按完整响应耗时的 p95，流式调用按首个数据块耗时的 p95
+ */
+@Slf4j
+public class RoutingChatProvider implements ChatProvider {
+
+    private static final String SERVED_MODEL = "nanobot.provider.served-model";
+
+    private final ChatProviderResolver resolver;
+    private final RoutingConfig config;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    /**
+     * 候选 Provider 的调用统计 (Provider 名称 → 统计)
+     */
+    private final Map<String, ProviderStats> stats = new ConcurrentHashMap<>();
+
+    public RoutingChatProvider(ChatProviderResolver resolver,
+                               RoutingConfig config,
+                               MeterRegistry meterRegistry,
+                               CircuitBreakerRegistry circuitBreakerRegistry) {
+        this.resolver = resolver;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Mono.defer(() -> {
+            String model = options != null ? options.getModel() : null;
+            List<RouteCandidate> group = config.isEnabled() && model != null ? config.getGroups().get(model) : null;
+            if (group == null || group.isEmpty()) {
+                return resolver.resolve(model).chat(messages, tools, options);
+            }
+
+            List<RouteCandidate> ranked = rank(group);
+            RouteCandidate primary = ranked.get(0);
+            if (!config.isHedge() || ranked.size() < 2) {
+                return call(primary, messages, tools, options);
+            }
+
+            RouteCandidate backup = ranked.get(1);
+            Duration delay = hedgeDelay(stats(primary.getProvider()).p95Millis());
+            return Mono.firstWithValue(
+                    call(primary, messages, tools, options),
+                    Mono.delay(delay).then(Mono.defer(() -> {
+                        log.debug("{} slower than {}, hedging to {}", primary.getProvider(), delay, backup.getProvider());
+                        meterRegistry.counter("nanobot.provider.hedged", "provider", backup.getProvider()).increment();
+                        return call(backup, messages, tools, options);
+                    })));
+        });
+    }
+
+    /**
+     * 流式调用按同样的规则选择 Provider；对冲以首个数据块为准，先开始输出者胜出
+     */
+    @Override
+    public Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Flux.defer(() -> {
+            String model = options != null ? options.getModel() : null;
+            List<RouteCandidate> group = config.isEnabled() && model != null ? config.getGroups().get(model) : null;
+            if (group == null || group.isEmpty()) {
+                return resolver.resolve(model).stream(messages, tools, options);
+            }
+
+            List<RouteCandidate> ranked = rank(group);
+            RouteCandidate primary = ranked.get(0);
+            if (!config.isHedge() || ranked.size() < 2) {
+                return streamCall(primary, messages, tools, options);
+            }
+
+            RouteCandidate backup = ranked.get(1);
+            Duration delay = hedgeDelay(stats(primary.getProvider()).firstChunkP95Millis());
+            return Flux.firstWithValue(
+                    streamCall(primary, messages, tools, options),
+                    Mono.delay(delay).thenMany(Flux.defer(() -> {
+                        log.debug("{} slower than {}, hedging to {}", primary.getProvider(), delay, backup.getProvider());
+                        meterRegistry.counter("nanobot.provider.hedged", "provider", backup.getProvider()).increment();
+                        return streamCall(backup, messages, tools, options);
+                    })));
+        });
+    }
+
+    @Override
+    public Flux<String> chatStream(List<ChatMessage> messages, List<Tool> tools) {
+        return Flux.defer(() -> resolver.resolve(null).chatStream(messages, tools));
+    }
+
+    /**
+     * 按评分排序候选 Provider，熔断中的排在最后，评分相同时保持配置顺序
+     */
+    private List<RouteCandidate> rank(List<RouteCandidate> group) {
+        List<RouteCandidate> ranked = new ArrayList<>(group);
+        ranked.sort(Comparator.<RouteCandidate, Boolean>comparing(
+                        candidate -> circuitBreakerRegistry.isOpen(candidate.getProvider()))
+                .thenComparingDouble(candidate -> stats(candidate.getProvider()).score()));
+        return ranked;
+    }
+
+    /**
+     * 对冲延迟：首选 Provider 最近的 p95 延迟，不低于配置的最小值
+     */
+    private Duration hedgeDelay(long p95) {
+        return p95 > config.getHedgeMinDelay().toMillis() ? Duration.ofMillis(p95) : config.getHedgeMinDelay();
+    }
+
+    /**
+     * 调用单个候选 Provider 并记录延迟和错误；被取消的调用不计入统计
+     */
+    private Mono<ChatResponse> call(RouteCandidate candidate, List<ChatMessage> messages, List<Tool> tools,
+                                    ModelOptions options) {
+        ProviderStats providerStats = stats(candidate.getProvider());
+        return Mono.deferContextual(ctx -> {
+            long start = System.nanoTime();
+            return resolver.provider(candidate.getProvider())
+                    .chat(messages, tools, options.toBuilder().model(candidate.getModel()).build())
+                    .doOnNext(response -> {
+                        providerStats.recordSuccess((System.nanoTime() - start) / 1_000_000);
+                        markServedModel(ctx, candidate);
+                    })
+                    .doOnError(e -> {
+                        providerStats.recordError();
+                        log.warn("Provider {} failed for model {}: {}",
+                                candidate.getProvider(), candidate.getModel(), e.getMessage());
+                    });
+        });
+    }
+
+    /**
+     * 流式调用单个候选 Provider：首个数据块耗时用于对冲，完整输出耗时与非流式调用一起用于评分
+     */
+    private Flux<ChatChunk> streamCall(RouteCandidate candidate, List<ChatMessage> messages, List<Tool> tools,
+                                       ModelOptions options) {
+        ProviderStats providerStats = stats(candidate.getProvider());
+        return Flux.deferContextual(ctx -> {
+            long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            return resolver.provider(candidate.getProvider())
+                    .stream(messages, tools, options.toBuilder().model(candidate.getModel()).build())
+                    .doOnNext(chunk -> {
+                        if (first.compareAndSet(true, false)) {
+                            providerStats.recordFirstChunk((System.nanoTime() - start) / 1_000_000);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        providerStats.recordSuccess((System.nanoTime() - start) / 1_000_000);
+                        markServedModel(ctx, candidate);
+                    })
+                    .doOnError(e -> {
+                        providerStats.recordError();
+                        log.warn("Provider {} failed for model {}: {}",
+                                candidate.getProvider(), candidate.getModel(), e.getMessage());
+                    });
+        });
+    }
+
+    /**
+     * 将实际完成调用的候选模型写回调用方登记的引用
+     */
+    private static void markServedModel(ContextView ctx, RouteCandidate candidate) {
+        AtomicReference<String> served = ctx.getOrDefault(SERVED_MODEL, null);
+        if (served != null) {
+            served.set(candidate.getModel());
+        }
+    }
+
+    /**
+     * 登记接收实际模型名的引用：经模型组路由的调用完成后写入选中候选的模型名，未路由的调用保持不变
+     *
+     * @param served 实际模型名
+     * @return Context
+     */
+    public static Context trackServedModel(AtomicReference<String> served) {
+        return Context.of(SERVED_MODEL, served);
+    }
+
+    private ProviderStats stats(String provider) {
+        return stats.computeIfAbsent(provider, name -> new ProviderStats(name, config.getEwmaAlpha(),
+                config.getErrorHalfLife(), meterRegistry));
+    }
+}
@@ -0,0 +1,69 @@
+package org.nanobot.provider;
+
+import org.nanobot.model.ChatMessage;
+import org.nanobot.model.ToolCall;
+
+import java.util.List;
+
+/**
+ * Token 数量估算工具
+ * 不依赖具体分词器：CJK 字符按 1 token 计，其余字符按 4 字符 1 token 计
+ */
+public final class TokenEstimator {
+
+    /**
+     * 每条消息的固定开销 (角色、分隔符等)
+     */
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算文本的 token 数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (isCjk(text.charAt(i))) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    /**
+     * 估算消息列表的 token 数
+     */
+    public static int estimate(List<ChatMessage> messages) {
+        if (messages == null) {
+            return 0;
+        }
+        int total = 0;
+        for (ChatMessage message : messages) {
+            total += MESSAGE_OVERHEAD + estimate(message.getContent());
+            if (message.getToolCalls() != null) {
+                for (ToolCall toolCall : message.getToolCalls()) {
+                    total += estimate(toolCall.getFunctionName()) + estimate(toolCall.getArguments());
+                }
+            }
+        }
+        return total;
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
+        return block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS
+                || block == Character.UnicodeBlock.HIRAGANA
+                || block == Character.UnicodeBlock.KATAKANA
+                || block == Character.UnicodeBlock.HANGUL_SYLLABLES;
+    }
+}
@@ -0,0 +1,15 @@
+package org.nanobot.provider;
+
+/**
+ * 单次模型调用的 token 用量
+ *
+ * @param promptTokens     输入 token 数（含命中缓存的部分）
+ * @param completionTokens 输出 token 数
+ * @param cachedTokens     输入中命中 Provider 前缀缓存的 token 数
+ */
+public record TokenUsage(long promptTokens, long completionTokens, long cachedTokens) {
+
+    public long totalTokens() {
+        return promptTokens + completionTokens;
+    }
+}
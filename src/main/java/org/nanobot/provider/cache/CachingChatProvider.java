@@ -0,0 +1,255 @@
+package org.nanobot.provider.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.ProvidersConfig.CachePolicy;
+import org.nanobot.config.ProvidersConfig.ResponseCacheConfig;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.model.ToolCall;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ChatRequestContext;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.tool.Tool;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带响应缓存的 ChatProvider 装饰器
+ * 以完整提示词、模型参数和工具 Schema 的哈希为键，内存 LRU 为一级缓存，可选内存映射文件为二级缓存
+ * 缓存策略按调用方 (ChatRequestContext.caller) 配置，默认不缓存含有副作用工具调用的响应
+ */
+@Slf4j
+public class CachingChatProvider implements ChatProvider {
+
+    /**
+     * 兜底策略的调用方标识
+     */
+    private static final String DEFAULT_CALLER = "default";
+
+    private final ChatProvider delegate;
+    private final ResponseCacheConfig config;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final MappedResponseStore diskStore;
+    private final Map<String, CachedResponse> memoryCache;
+
+    public CachingChatProvider(ChatProvider delegate,
+                               ResponseCacheConfig config,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               MappedResponseStore diskStore) {
+        this.delegate = delegate;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.diskStore = diskStore;
+
+        int maxEntries = config.getMaxEntries();
+        this.memoryCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Mono.deferContextual(ctx -> {
+            CachePolicy policy = resolvePolicy(ChatRequestContext.from(ctx));
+            if (policy == null || !policy.isEnabled()) {
+                record("bypass");
+                return delegate.chat(messages, tools, options);
+            }
+
+            String key = buildKey(messages, tools, options);
+            ChatResponse cached = lookup(key);
+            if (cached != null) {
+                record("hit");
+                return Mono.just(cached);
+            }
+
+            record("miss");
+            return delegate.chat(messages, tools, options)
+                    .doOnNext(response -> {
+                        if (isCacheable(response, tools, policy)) {
+                            store(key, response, policy);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * 流式调用：命中时以单个数据块返回缓存的响应，未命中时边转发边聚合，完整结束后写入缓存
+     */
+    @Override
+    public Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Flux.deferContextual(ctx -> {
+            CachePolicy policy = resolvePolicy(ChatRequestContext.from(ctx));
+            if (policy == null || !policy.isEnabled()) {
+                record("bypass");
+                return delegate.stream(messages, tools, options);
+            }
+
+            String key = buildKey(messages, tools, options);
+            ChatResponse cached = lookup(key);
+            if (cached != null) {
+                record("hit");
+                return Flux.just(ChatChunk.of(cached));
+            }
+
+            record("miss");
+            ChatChunk.Accumulator accumulator = new ChatChunk.Accumulator();
+            return delegate.stream(messages, tools, options)
+                    .doOnNext(accumulator::accept)
+                    .doOnComplete(() -> {
+                        ChatResponse response = accumulator.toResponse();
+                        if (isCacheable(response, tools, policy)) {
+                            store(key, response, policy);
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public Flux<String> chatStream(List<ChatMessage> messages, List<Tool> tools) {
+        return delegate.chatStream(messages, tools);
+    }
+
+    /**
+     * 解析调用方的缓存策略
+     */
+    private CachePolicy resolvePolicy(ChatRequestContext requestContext) {
+        Map<String, CachePolicy> callers = config.getCallers();
+        if (requestContext.getCaller() != null && callers.containsKey(requestContext.getCaller())) {
+            return callers.get(requestContext.getCaller());
+        }
+        return callers.get(DEFAULT_CALLER);
+    }
+
+    /**
+     * 判断响应是否可缓存：含工具调用时，仅在所有工具均无副作用或策略显式允许时缓存
+     */
+    private boolean isCacheable(ChatResponse response, List<Tool> tools, CachePolicy policy) {
+        if (!response.hasToolCalls() || policy.isAllowSideEffects()) {
+            return true;
+        }
+        return response.getToolCalls().stream()
+                .allMatch(call -> tools != null && tools.stream().anyMatch(tool ->
+                        tool.getName().equals(call.getFunctionName()) && !tool.hasSideEffects()));
+    }
+
+    private ChatResponse lookup(String key) {
+        synchronized (memoryCache) {
+            CachedResponse cached = memoryCache.get(key);
+            if (cached != null) {
+                if (cached.expiresAt() >= System.currentTimeMillis()) {
+                    return cached.toResponse();
+                }
+                memoryCache.remove(key);
+            }
+        }
+
+        if (diskStore != null) {
+            byte[] bytes = diskStore.get(key);
+            if (bytes != null) {
+                try {
+                    CachedResponse cached = objectMapper.readValue(bytes, CachedResponse.class);
+                    synchronized (memoryCache) {
+                        memoryCache.put(key, cached);
+                    }
+                    return cached.toResponse();
+                } catch (Exception e) {
+                    log.warn("Failed to read cached response from disk: {}", e.getMessage());
+                }
+            }
+        }
+        return null;
+    }
+
+    private void store(String key, ChatResponse response, CachePolicy policy) {
+        long expiresAt = System.currentTimeMillis() + policy.getTtl().toMillis();
+        CachedResponse cached = new CachedResponse(response.getContent(), response.getToolCalls(), expiresAt);
+        synchronized (memoryCache) {
+            memoryCache.put(key, cached);
+        }
+
+        if (diskStore != null) {
+            try {
+                diskStore.put(key, objectMapper.writeValueAsBytes(cached), expiresAt);
+            } catch (Exception e) {
+                log.warn("Failed to write cached response to disk: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 构建缓存键
+     * 覆盖消息角色、内容、工具调用、模型参数和工具 Schema；不含时间戳和工具调用ID
+     */
+    private String buildKey(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        List<Object> prompt = new ArrayList<>();
+        for (ChatMessage message : messages) {
+            List<List<String>> toolCalls = new ArrayList<>();
+            if (message.getToolCalls() != null) {
+                for (ToolCall toolCall : message.getToolCalls()) {
+                    toolCalls.add(List.of(String.valueOf(toolCall.getFunctionName()),
+                            String.valueOf(toolCall.getArguments())));
+                }
+            }
+            prompt.add(List.of(message.getRole().getValue(), String.valueOf(message.getContent()), toolCalls));
+        }
+
+        List<Object> toolSchemas = new ArrayList<>();
+        if (tools != null) {
+            for (Tool tool : tools) {
+                toolSchemas.add(List.of(tool.getName(), tool.getDescription(), tool.getParameterSchema()));
+            }
+        }
+
+        Map<String, Object> keyMaterial = new LinkedHashMap<>();
+        keyMaterial.put("model", options != null ? String.valueOf(options.getModel()) : "");
+        keyMaterial.put("temperature", options != null ? String.valueOf(options.getTemperature()) : "");
+        keyMaterial.put("messages", prompt);
+        keyMaterial.put("tools", toolSchemas);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(objectMapper.writeValueAsString(keyMaterial)
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException | com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new IllegalStateException("Failed to build cache key", e);
+        }
+    }
+
+    private void record(String result) {
+        meterRegistry.counter("nanobot.provider.cache.requests", "result", result).increment();
+    }
+
+    /**
+     * 缓存的响应
+     */
+    record CachedResponse(String content, List<ToolCall> toolCalls, long expiresAt) {
+
+        ChatResponse toResponse() {
+            return new ChatResponse(content, toolCalls);
+        }
+    }
+}
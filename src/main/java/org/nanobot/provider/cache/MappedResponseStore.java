@@ -0,0 +1,149 @@
+package org.nanobot.provider.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于内存映射文件的响应存储
+ * 追加写入定长文件，启动时扫描重建索引，写满后整体清空重新开始
+ * <p>
+ * 记录格式: [int 记录长度][long 过期时间][int key 长度][key][int value 长度][value]
+ */
+@Slf4j
+public class MappedResponseStore implements Closeable {
+
+    private static final int MAGIC = 0x4E425243; // "NBRC"
+    private static final int HEADER_SIZE = 8;    // magic + 写入位置
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Map<String, Integer> index = new HashMap<>();
+    private int writePosition;
+
+    public MappedResponseStore(Path path, int capacityBytes) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+
+        int storedPosition = buffer.getInt(4);
+        if (buffer.getInt(0) == MAGIC && storedPosition >= HEADER_SIZE && storedPosition <= capacityBytes) {
+            this.writePosition = storedPosition;
+            rebuildIndex();
+        } else {
+            reset();
+        }
+        log.info("Opened response store {} ({} entries, {}/{} bytes used)",
+                path, index.size(), writePosition, capacityBytes);
+    }
+
+    /**
+     * 读取未过期的值
+     *
+     * @param key 键
+     * @return byte[] 值，不存在或已过期返回 null
+     */
+    public synchronized byte[] get(String key) {
+        Integer offset = index.get(key);
+        if (offset == null) {
+            return null;
+        }
+
+        long expiresAt = buffer.getLong(offset + 4);
+        if (expiresAt < System.currentTimeMillis()) {
+            index.remove(key);
+            return null;
+        }
+
+        int keyLength = buffer.getInt(offset + 12);
+        int valueOffset = offset + 16 + keyLength;
+        byte[] value = new byte[buffer.getInt(valueOffset)];
+        buffer.get(valueOffset + 4, value);
+        return value;
+    }
+
+    /**
+     * 写入值
+     *
+     * @param key       键
+     * @param value     值
+     * @param expiresAt 过期时间 (epoch 毫秒)
+     */
+    public synchronized void put(String key, byte[] value, long expiresAt) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int recordLength = 4 + 8 + 4 + keyBytes.length + 4 + value.length;
+
+        if (recordLength > buffer.capacity() - HEADER_SIZE) {
+            log.debug("Response too large for store: {} bytes", recordLength);
+            return;
+        }
+        if (writePosition + recordLength > buffer.capacity()) {
+            log.info("Response store full, resetting");
+            reset();
+        }
+
+        int offset = writePosition;
+        buffer.putInt(offset, recordLength);
+        buffer.putLong(offset + 4, expiresAt);
+        buffer.putInt(offset + 12, keyBytes.length);
+        buffer.put(offset + 16, keyBytes);
+        buffer.putInt(offset + 16 + keyBytes.length, value.length);
+        buffer.put(offset + 20 + keyBytes.length, value);
+
+        writePosition += recordLength;
+        buffer.putInt(4, writePosition);
+        index.put(key, offset);
+    }
+
+    /**
+     * 扫描记录重建索引，后写入的记录覆盖先前的同名记录
+     */
+    private void rebuildIndex() {
+        int position = HEADER_SIZE;
+        long now = System.currentTimeMillis();
+        while (position < writePosition) {
+            int recordLength = buffer.getInt(position);
+            if (recordLength <= 0 || position + recordLength > writePosition) {
+                log.warn("Corrupted response store record at {}, truncating", position);
+                writePosition = position;
+                buffer.putInt(4, writePosition);
+                break;
+            }
+
+            int keyLength = buffer.getInt(position + 12);
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(position + 16, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+
+            if (buffer.getLong(position + 4) >= now) {
+                index.put(key, position);
+            } else {
+                index.remove(key);
+            }
+            position += recordLength;
+        }
+    }
+
+    private void reset() {
+        index.clear();
+        writePosition = HEADER_SIZE;
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, writePosition);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
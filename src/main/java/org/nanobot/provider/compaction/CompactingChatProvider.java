@@ -0,0 +1,91 @@
+package org.nanobot.provider.compaction;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.ProvidersConfig.CompactionConfig;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.provider.TokenEstimator;
+import org.nanobot.tool.Tool;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 提示词压缩 ChatProvider 装饰器
+ * 位于最外层，缓存键也基于压缩后的消息；每次请求节省的字节数和估算 token 数
+ * 以 nanobot.prompt.compaction.saved（unit 标签区分 bytes / tokens）上报
+ */
+@Slf4j
+public class CompactingChatProvider implements ChatProvider {
+
+    private final ChatProvider delegate;
+    private final PromptCompactor compactor;
+    private final DistributionSummary bytesSaved;
+    private final DistributionSummary tokensSaved;
+
+    public CompactingChatProvider(ChatProvider delegate, CompactionConfig config, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.compactor = new PromptCompactor(config);
+        this.bytesSaved = DistributionSummary.builder("nanobot.prompt.compaction.saved")
+                .description("Prompt bytes removed by compaction per request")
+                .tag("unit", "bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.tokensSaved = DistributionSummary.builder("nanobot.prompt.compaction.saved")
+                .description("Estimated prompt tokens removed by compaction per request")
+                .tag("unit", "tokens")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Mono.defer(() -> delegate.chat(compact(messages), tools, options));
+    }
+
+    @Override
+    public Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Flux.defer(() -> delegate.stream(compact(messages), tools, options));
+    }
+
+    @Override
+    public Flux<String> chatStream(List<ChatMessage> messages, List<Tool> tools) {
+        return Flux.defer(() -> delegate.chatStream(compact(messages), tools));
+    }
+
+    private List<ChatMessage> compact(List<ChatMessage> messages) {
+        List<ChatMessage> compacted = compactor.compact(messages);
+        if (compacted == messages) {
+            bytesSaved.record(0);
+            tokensSaved.record(0);
+            return messages;
+        }
+        long bytes = bytes(messages) - bytes(compacted);
+        long tokens = TokenEstimator.estimate(messages) - TokenEstimator.estimate(compacted);
+        bytesSaved.record(bytes);
+        tokensSaved.record(tokens);
+        log.debug("Prompt compaction saved {} bytes, ~{} tokens", bytes, tokens);
+        return compacted;
+    }
+
+    private static long bytes(List<ChatMessage> messages) {
+        long total = 0;
+        for (ChatMessage message : messages) {
+            if (message.getContent() != null) {
+                total += message.getContent().getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,184 @@
+package org.nanobot.provider.compaction;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.nanobot.config.ProvidersConfig.CompactionConfig;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.model.ToolCall;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 提示词压缩
+ * 只生成发给模型的副本，不修改轮次状态和会话历史中的消息：
+ * <ul>
+ *     <li>之后被 write_file 覆盖的 read_file 结果替换为省略说明（默认关闭，最近的消息不省略）</li>
+ *     <li>JSON 格式的工具结果去掉缩进和换行</li>
+ *     <li>相同的工具结果只保留第一次，之后引用第一次的工具调用ID</li>
+ *     <li>去掉行尾空白和连续空行；系统、用户和助手消息中代码块以外的连续空格折叠为一个</li>
+ * </ul>
+ */
+public class PromptCompactor {
+
+    private static final String READ_FILE = "read_file";
+    private static final String WRITE_FILE = "write_file";
+
+    private static final String FENCE = "```";
+    private static final Pattern TRAILING_WHITESPACE = Pattern.compile("[ \t]+(?=\n|$)");
+    private static final Pattern BLANK_LINES = Pattern.compile("\n{3,}");
+    private static final Pattern INNER_SPACES = Pattern.compile("(?<=\\S)[ \t]{2,}");
+
+    private final CompactionConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+            .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+
+    public PromptCompactor(CompactionConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 压缩消息列表
+     *
+     * @param messages 原始消息
+     * @return 压缩后的消息；没有任何变化时返回原列表
+     */
+    public List<ChatMessage> compact(List<ChatMessage> messages) {
+        Map<String, ToolCall> calls = new HashMap<>();
+        Map<String, Integer> lastWrites = new HashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            List<ToolCall> toolCalls = messages.get(i).getToolCalls();
+            if (toolCalls == null) {
+                continue;
+            }
+            for (ToolCall call : toolCalls) {
+                calls.put(call.getId(), call);
+                String path = WRITE_FILE.equals(call.getFunctionName()) ? normalizePath(call.getArgument("path")) : null;
+                if (path != null) {
+                    lastWrites.put(path, i);
+                }
+            }
+        }
+
+        List<ChatMessage> result = new ArrayList<>(messages.size());
+        Map<String, String> seenResults = new HashMap<>();
+        int elideBefore = messages.size() - Math.max(config.getElideStaleReadsKeepRecent(), 0);
+        boolean changed = false;
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage message = messages.get(i);
+            String content = message.getContent();
+            if (content != null && !content.isEmpty()) {
+                content = message.getRole() == ChatMessage.Role.TOOL
+                        ? compactToolResult(message, i, i < elideBefore,
+                                calls.get(message.getToolCallId()), lastWrites, seenResults)
+                        : compactText(content);
+            }
+            if (content != null && !content.equals(message.getContent())) {
+                result.add(copy(message, content));
+                changed = true;
+            } else {
+                result.add(message);
+            }
+        }
+        return changed ? result : messages;
+    }
+
+    private String compactToolResult(ChatMessage message, int index, boolean elidable, ToolCall call,
+                                     Map<String, Integer> lastWrites, Map<String, String> seenResults) {
+        if (config.isElideStaleReads() && elidable && call != null && READ_FILE.equals(call.getFunctionName())) {
+            String path = normalizePath(call.getArgument("path"));
+            Integer lastWrite = path != null ? lastWrites.get(path) : null;
+            if (lastWrite != null && lastWrite > index) {
+                return "[已省略：文件 " + path + " 之后已被 write_file 修改，此读取结果已过期]";
+            }
+        }
+
+        String content = message.getContent();
+        if (config.isMinifyJson()) {
+            content = minifyJson(content);
+        }
+        if (config.isCollapseWhitespace()) {
+            content = trimLines(content);
+        }
+        if (config.isDedupeToolResults() && content.length() >= config.getDedupeMinLength()
+                && message.getToolCallId() != null) {
+            String first = seenResults.putIfAbsent(content, message.getToolCallId());
+            if (first != null) {
+                return "[结果与工具调用 " + first + " 相同]";
+            }
+        }
+        return content;
+    }
+
+    /**
+     * 系统、用户和助手消息：代码块内只去掉行尾空白，代码块外再折叠行内连续空格
+     */
+    private String compactText(String content) {
+        if (!config.isCollapseWhitespace()) {
+            return content;
+        }
+        String[] parts = content.split(FENCE, -1);
+        StringBuilder builder = new StringBuilder(content.length());
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                builder.append(FENCE);
+            }
+            // 奇数段位于代码块内
+            String part = TRAILING_WHITESPACE.matcher(parts[i]).replaceAll("");
+            builder.append(i % 2 == 1 ? part : INNER_SPACES.matcher(part).replaceAll(" "));
+        }
+        return BLANK_LINES.matcher(builder).replaceAll("\n\n");
+    }
+
+    /**
+     * 工具结果可能是源代码，只去掉行尾空白和连续空行，不改动缩进
+     */
+    private String trimLines(String content) {
+        String trimmed = TRAILING_WHITESPACE.matcher(content).replaceAll("");
+        return BLANK_LINES.matcher(trimmed).replaceAll("\n\n");
+    }
+
+    private String minifyJson(String content) {
+        String trimmed = content.trim();
+        if (trimmed.length() < 2 || !(trimmed.startsWith("{") || trimmed.startsWith("["))) {
+            return content;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(trimmed);
+            String minified = objectMapper.writeValueAsString(node);
+            return minified.length() < content.length() ? minified : content;
+        } catch (IOException e) {
+            return content;
+        }
+    }
+
+    private static String normalizePath(String path) {
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        try {
+            return Paths.get(path).normalize().toString();
+        } catch (InvalidPathException e) {
+            return path;
+        }
+    }
+
+    private static ChatMessage copy(ChatMessage message, String content) {
+        return ChatMessage.builder()
+                .role(message.getRole())
+                .content(content)
+                .toolCalls(message.getToolCalls())
+                .toolCallId(message.getToolCallId())
+                .timestamp(message.getTimestamp())
+                .build();
+    }
+}
@@ -0,0 +1,243 @@
+package org.nanobot.provider.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.model.ToolCall;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatChunk.ToolCallDelta;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.provider.ProviderSpec;
+import org.nanobot.provider.TokenUsage;
+import org.nanobot.tool.Tool;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * OpenAI 兼容协议的 Chat Provider 实现
+ * 基于 WebClient (Reactor Netty) 调用 /chat/completions，以 SSE 流式接收文本和工具调用增量，
+ * 调用期间不占用任何线程；DeepSeek、Qwen、Moonshot、OpenRouter 等 ProviderSpec 共用此实现
+ */
+@Slf4j
+public class OpenAiCompatibleChatProvider implements ChatProvider {
+
+    private static final String DONE = "[DONE]";
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private final ProviderSpec spec;
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final Consumer<HttpHeaders> rateLimitListener;
+
+    public OpenAiCompatibleChatProvider(ProviderSpec spec,
+                                        String baseUrl,
+                                        String apiKey,
+                                        WebClient.Builder webClientBuilder,
+                                        ObjectMapper objectMapper,
+                                        Duration timeout,
+                                        Consumer<HttpHeaders> rateLimitListener) {
+        this.spec = spec;
+        this.webClient = webClientBuilder
+                .baseUrl(baseUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .build();
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.rateLimitListener = rateLimitListener;
+    }
+
+    public ProviderSpec getSpec() {
+        return spec;
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return ChatChunk.collect(stream(messages, tools, options));
+    }
+
+    @Override
+    public Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Flux.defer(() -> {
+            log.debug("Calling {} with {} messages, {} tools", spec.getName(), messages.size(),
+                    tools != null ? tools.size() : 0);
+            return send(buildRequest(messages, tools, options)).map(OpenAiCompatibleChatProvider::toChunk);
+        });
+    }
+
+    @Override
+    public Flux<String> chatStream(List<ChatMessage> messages, List<Tool> tools) {
+        return Flux.defer(() -> send(buildRequest(messages, tools, null)))
+                .map(chunk -> chunk.path("choices").path(0).path("delta").path("content").asText(""))
+                .filter(content -> !content.isEmpty());
+    }
+
+    /**
+     * 发送流式请求，逐个返回 SSE 数据块
+     */
+    private Flux<JsonNode> send(ObjectNode request) {
+        return webClient.post()
+                .uri("/chat/completions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(request)
+                .exchangeToFlux(response -> {
+                    // 成功和 429 等错误响应的限流头都反馈给限流器
+                    rateLimitListener.accept(response.headers().asHttpHeaders());
+                    if (response.statusCode().isError()) {
+                        return response.createError().flux();
+                    }
+                    return response.bodyToFlux(SSE_TYPE);
+                })
+                // 注释和保活事件（如 OpenRouter 的 ": OPENROUTER PROCESSING"）没有 data，直接丢弃
+                .mapNotNull(ServerSentEvent::data)
+                .takeWhile(data -> !DONE.equals(data.trim()))
+                .filter(data -> !data.isBlank())
+                .map(this::parseChunk)
+                .timeout(timeout);
+    }
+
+    private JsonNode parseChunk(String data) {
+        try {
+            return objectMapper.readTree(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid stream chunk from " + spec.getName() + ": " + data, e);
+        }
+    }
+
+    /**
+     * 构建 chat/completions 请求体
+     */
+    private ObjectNode buildRequest(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        String model = options != null ? options.getModel() : null;
+        if (model == null || model.isBlank()) {
+            throw new IllegalArgumentException("Model is required for provider " + spec.getName());
+        }
+
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("model", stripPrefix(model));
+        request.put("stream", true);
+        // 流式响应默认不带用量，要求在最后一个数据块中返回
+        request.putObject("stream_options").put("include_usage", true);
+        if (options.getTemperature() != null) {
+            request.put("temperature", options.getTemperature());
+        }
+
+        ArrayNode messageArray = request.putArray("messages");
+        for (ChatMessage message : messages) {
+            messageArray.add(convertMessage(message));
+        }
+
+        if (tools != null && !tools.isEmpty()) {
+            ArrayNode toolArray = request.putArray("tools");
+            for (Tool tool : tools) {
+                ObjectNode function = toolArray.addObject()
+                        .put("type", "function")
+                        .putObject("function");
+                function.put("name", tool.getName());
+                function.put("description", tool.getDescription());
+                function.set("parameters", parseSchema(tool));
+            }
+        }
+        return request;
+    }
+
+    /**
+     * 网关 Provider 的模型名去掉路由前缀
+     */
+    private String stripPrefix(String model) {
+        String prefix = spec.getModelPrefix();
+        if (prefix != null && !prefix.isEmpty() && model.startsWith(prefix)) {
+            return model.substring(prefix.length());
+        }
+        return model;
+    }
+
+    private ObjectNode convertMessage(ChatMessage message) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("role", message.getRole().getValue());
+        node.put("content", message.getContent() != null ? message.getContent() : "");
+
+        if (message.getToolCalls() != null && !message.getToolCalls().isEmpty()) {
+            ArrayNode calls = node.putArray("tool_calls");
+            for (ToolCall call : message.getToolCalls()) {
+                ObjectNode callNode = calls.addObject();
+                callNode.put("id", call.getId());
+                callNode.put("type", call.getType() != null ? call.getType() : "function");
+                callNode.putObject("function")
+                        .put("name", call.getFunctionName())
+                        .put("arguments", call.getArguments() != null ? call.getArguments() : "{}");
+            }
+        }
+        if (message.getToolCallId() != null) {
+            node.put("tool_call_id", message.getToolCallId());
+        }
+        return node;
+    }
+
+    private JsonNode parseSchema(Tool tool) {
+        try {
+            return objectMapper.readTree(tool.getParameterSchema());
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid parameter schema of tool " + tool.getName(), e);
+        }
+    }
+
+    /**
+     * 转换 SSE 数据块：choices[0].delta 中的文本和工具调用片段、finish_reason 以及 usage
+     */
+    private static ChatChunk toChunk(JsonNode chunk) {
+        JsonNode choice = chunk.path("choices").path(0);
+        JsonNode delta = choice.path("delta");
+        String text = delta.hasNonNull("content") ? delta.get("content").asText() : null;
+
+        List<ToolCallDelta> toolCalls = new ArrayList<>();
+        int position = 0;
+        for (JsonNode callDelta : delta.path("tool_calls")) {
+            JsonNode function = callDelta.path("function");
+            toolCalls.add(new ToolCallDelta(
+                    callDelta.path("index").asInt(position++),
+                    callDelta.hasNonNull("id") ? callDelta.get("id").asText() : null,
+                    function.hasNonNull("name") ? function.get("name").asText() : null,
+                    function.hasNonNull("arguments") ? function.get("arguments").asText() : null));
+        }
+
+        String finishReason = choice.hasNonNull("finish_reason") ? choice.get("finish_reason").asText() : null;
+
+        // 多数 Provider 在顶层返回 usage，Moonshot 等放在 choices[0] 中
+        JsonNode usageNode = chunk.hasNonNull("usage") ? chunk.get("usage") : choice.path("usage");
+        TokenUsage usage = usageNode.isObject() ? parseUsage(usageNode) : null;
+        return new ChatChunk(text, toolCalls, finishReason, usage);
+    }
+
+    /**
+     * 缓存命中数：OpenAI/Qwen/Moonshot 为 prompt_tokens_details.cached_tokens，DeepSeek 为 prompt_cache_hit_tokens
+     */
+    private static TokenUsage parseUsage(JsonNode node) {
+        long cached = node.path("prompt_tokens_details").path("cached_tokens")
+                .asLong(node.path("prompt_cache_hit_tokens").asLong(0));
+        return new TokenUsage(node.path("prompt_tokens").asLong(0), node.path("completion_tokens").asLong(0), cached);
+    }
+}
@@ -2,15 +2,21 @@ package org.nanobot.provider.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.ProvidersConfig;
 import org.nanobot.model.ChatMessage;
 import org.nanobot.model.ToolCall;
+import org.nanobot.provider.ChatChunk;
 import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.provider.TokenUsage;
+import org.nanobot.runtime.BlockingSchedulers;
 import org.nanobot.tool.Tool;
 import org.nanobot.tool.ToolCallbackAdapter;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.zhipuai.ZhiPuAiChatModel;
@@ -34,40 +40,78 @@ public class ZhipuAiChatProvider implements ChatProvider {
 
     private final ZhiPuAiChatModel chatModel;
     private final ToolCallbackAdapter toolCallbackAdapter;
+    private final BlockingSchedulers blockingSchedulers;
+    private final ProvidersConfig providersConfig;
 
     @Override
     public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions modelOptions) {
         return Mono.fromCallable(() -> {
             log.debug("Calling Zhipu AI with {} messages, {} tools", messages.size(),
                     tools != null ? tools.size() : 0);
 
-            // 转换消息格式
-            List<Message> springMessages = convertMessages(messages);
+            // 调用 Spring AI
+            org.springframework.ai.chat.model.ChatResponse springAiResponse =
+                    chatModel.call(buildPrompt(messages, tools, modelOptions));
 
-            // 构建请求
-            Prompt prompt;
-            if (tools != null && !tools.isEmpty()) {
-                // 带工具调用的请求
-                ToolCallback[] toolCallbacks = toolCallbackAdapter.adaptAllTools();
+            // 转换响应
+            return convertResponse(springAiResponse);
+        }).subscribeOn(blockingSchedulers.llm());
+    }
+
+    /**
+     * 流式调用：Spring AI 的智谱流式接口基于 WebClient，不占用 llm 调度器；
+     * 透传模式下工具调用片段由 Spring AI 合并后随数据块返回
+     */
+    @Override
+    public Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions modelOptions) {
+        return Flux.defer(() -> {
+            log.debug("Streaming Zhipu AI with {} messages, {} tools", messages.size(),
+                    tools != null ? tools.size() : 0);
+            return chatModel.stream(buildPrompt(messages, tools, modelOptions));
+        }).map(this::convertChunk);
+    }
 
-                // 使用 ZhiPuAiChatOptions 配置工具
-                ZhiPuAiChatOptions options = ZhiPuAiChatOptions.builder()
-                        .toolCallbacks(toolCallbacks)
-                        .build();
+    /**
+     * 构建请求：模型参数和调用方选定的工具
+     */
+    private Prompt buildPrompt(List<ChatMessage> messages, List<Tool> tools, ModelOptions modelOptions) {
+        // 转换消息格式
+        List<Message> springMessages = convertMessages(messages);
 
-                prompt = new Prompt(springMessages, options);
-                log.debug("Created prompt with {} tool callbacks", toolCallbacks.length);
-            } else {
-                // 普通请求
-                prompt = new Prompt(springMessages);
+        // 构建请求
+        ZhiPuAiChatOptions.Builder optionsBuilder = ZhiPuAiChatOptions.builder();
+        if (modelOptions != null) {
+            if (modelOptions.getModel() != null) {
+                optionsBuilder.model(modelOptions.getModel());
+            }
+            if (modelOptions.getTemperature() != null) {
+                optionsBuilder.temperature(modelOptions.getTemperature());
             }
+        }
 
-            // 调用 Spring AI
-            org.springframework.ai.chat.model.ChatResponse springAiResponse = chatModel.call(prompt);
+        if (tools != null && !tools.isEmpty()) {
+            // 带工具调用的请求，只提供调用方选定的工具
+            ToolCallback[] toolCallbacks;
+            if (providersConfig.getGlm().isToolPassthrough()) {
+                // 透传模式：只发送定义，工具调用原样返回给 AgentLoop
+                toolCallbacks = toolCallbackAdapter.definitionCallbacks(tools);
+                optionsBuilder.internalToolExecutionEnabled(false);
+            } else {
+                toolCallbacks = tools.stream()
+                        .map(toolCallbackAdapter::adaptToFunctionCallback)
+                        .toArray(ToolCallback[]::new);
+            }
 
-            // 转换响应
-            return convertResponse(springAiResponse);
-        });
+            // 使用 ZhiPuAiChatOptions 配置工具
+            optionsBuilder.toolCallbacks(toolCallbacks);
+            log.debug("Created prompt with {} tool callbacks", toolCallbacks.length);
+        }
+        return new Prompt(springMessages, optionsBuilder.build());
     }
 
     @Override
@@ -188,12 +232,59 @@ public class ZhipuAiChatProvider implements ChatProvider {
                         .collect(Collectors.toList());
 
                 log.info("Spring AI returned {} tool calls", convertedToolCalls.size());
-                return ChatResponse.withToolCalls(content, convertedToolCalls);
+                return ChatResponse.withToolCalls(content, convertedToolCalls).withUsage(convertUsage(springAiResponse));
             }
         }
 
         // 普通文本响应
-        return ChatResponse.text(content);
+        return ChatResponse.text(content).withUsage(convertUsage(springAiResponse));
+    }
+
+    /**
+     * 转换 token 用量，智谱不返回缓存命中数
+     */
+    private TokenUsage convertUsage(org.springframework.ai.chat.model.ChatResponse springAiResponse) {
+        if (springAiResponse.getMetadata() == null || springAiResponse.getMetadata().getUsage() == null) {
+            return null;
+        }
+        Usage usage = springAiResponse.getMetadata().getUsage();
+        Number prompt = usage.getPromptTokens();
+        Number completion = usage.getCompletionTokens();
+        if (prompt == null && completion == null) {
+            return null;
+        }
+        return new TokenUsage(prompt != null ? prompt.longValue() : 0,
+                completion != null ? completion.longValue() : 0, 0);
+    }
+
+    /**
+     * 转换流式数据块
+     */
+    private ChatChunk convertChunk(org.springframework.ai.chat.model.ChatResponse springAiResponse) {
+        if (springAiResponse == null || springAiResponse.getResult() == null) {
+            return ChatChunk.text("");
+        }
+        var result = springAiResponse.getResult();
+        AssistantMessage output = result.getOutput();
+
+        List<ChatChunk.ToolCallDelta> toolCalls = new ArrayList<>();
+        if (output != null && output.getToolCalls() != null) {
+            List<AssistantMessage.ToolCall> calls = output.getToolCalls();
+            for (int i = 0; i < calls.size(); i++) {
+                AssistantMessage.ToolCall call = calls.get(i);
+                toolCalls.add(new ChatChunk.ToolCallDelta(i, call.id(), call.name(), call.arguments()));
+            }
+        }
+
+        String finishReason = result.getMetadata() != null && result.getMetadata().getFinishReason() != null
+                ? result.getMetadata().getFinishReason().toLowerCase()
+                : null;
+        // 中间数据块的用量为空或全 0
+        TokenUsage usage = convertUsage(springAiResponse);
+        if (usage != null && usage.totalTokens() == 0) {
+            usage = null;
+        }
+        return new ChatChunk(output != null ? output.getText() : null, toolCalls, finishReason, usage);
     }
 
     /**
@@ -0,0 +1,261 @@
+package org.nanobot.provider.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.ProvidersConfig.ProviderLimit;
+import org.nanobot.provider.ChatRequestContext.Priority;
+import org.springframework.http.HttpHeaders;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个 Provider 的客户端限流器
+ * 请求数 (RPM) 和估算 token 数 (TPM) 两个令牌桶连续补充；配额不足的请求按优先级、到达顺序排队，
+ * 超过排队期限时以 RejectedExecutionException 失败。响应中的限流头会收紧本地令牌桶
+ */
+@Slf4j
+public class ProviderRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final String provider;
+    private final Bucket requests;
+    private final Bucket tokens;
+    private final MeterRegistry meterRegistry;
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.comparing((Waiter w) -> w.priority).thenComparingLong(w -> w.sequence));
+
+    private long sequence;
+    private long pausedUntil;
+    private Disposable drainTimer;
+
+    public ProviderRateLimiter(String provider, ProviderLimit limit, MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.requests = new Bucket(limit.getRequestsPerMinute());
+        this.tokens = new Bucket(limit.getTokensPerMinute());
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("nanobot.provider.queue.size", this, ProviderRateLimiter::queued)
+                .description("Model calls waiting for rate limit capacity")
+                .tag("provider", provider)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 申请一次调用的配额
+     *
+     * @param estimatedTokens 估算的 token 数
+     * @param priority        优先级
+     * @param deadline        最长排队时间
+     * @return Mono<Void> 获得配额时完成
+     */
+    public Mono<Void> acquire(long estimatedTokens, Priority priority, Duration deadline) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink, estimatedTokens, priority, System.nanoTime());
+            List<Waiter> granted;
+            synchronized (this) {
+                waiter.sequence = sequence++;
+                queue.add(waiter);
+                granted = drain();
+                if (!granted.contains(waiter)) {
+                    waiter.expiry = Schedulers.parallel().schedule(
+                            () -> expire(waiter, deadline), deadline.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            sink.onCancel(() -> remove(waiter));
+            grant(granted);
+        });
+    }
+
+    /**
+     * 根据响应头收紧令牌桶：x-ratelimit-remaining-requests / x-ratelimit-remaining-tokens / retry-after
+     *
+     * @param headers 响应头
+     */
+    public void onHeaders(HttpHeaders headers) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Long remainingRequests = parseLong(headers.getFirst("x-ratelimit-remaining-requests"));
+            if (remainingRequests != null) {
+                requests.limitTo(remainingRequests, now);
+            }
+            Long remainingTokens = parseLong(headers.getFirst("x-ratelimit-remaining-tokens"));
+            if (remainingTokens != null) {
+                tokens.limitTo(remainingTokens, now);
+            }
+            Long retryAfter = parseLong(headers.getFirst(HttpHeaders.RETRY_AFTER));
+            if (retryAfter != null && retryAfter > 0) {
+                pausedUntil = Math.max(pausedUntil, now + TimeUnit.SECONDS.toNanos(retryAfter));
+                log.warn("Provider {} asked to retry after {}s, pausing queue", provider, retryAfter);
+            }
+        }
+    }
+
+    /**
+     * 按优先级放行队首请求，直到配额不足；调用方需持有锁，返回的请求需在锁外完成
+     */
+    private List<Waiter> drain() {
+        List<Waiter> granted = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            Waiter head = queue.peek();
+            long now = System.nanoTime();
+            long cost = tokens.capped(head.tokens);
+            long wait = Math.max(pausedUntil - now, Math.max(requests.waitNanos(1, now), tokens.waitNanos(cost, now)));
+            if (wait > 0) {
+                scheduleDrain(wait);
+                break;
+            }
+            requests.take(1, now);
+            tokens.take(cost, now);
+            queue.poll();
+            granted.add(head);
+        }
+        return granted;
+    }
+
+    private void scheduleDrain(long delayNanos) {
+        if (drainTimer != null) {
+            drainTimer.dispose();
+        }
+        drainTimer = Schedulers.parallel().schedule(() -> {
+            List<Waiter> granted;
+            synchronized (this) {
+                granted = drain();
+            }
+            grant(granted);
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void grant(List<Waiter> granted) {
+        for (Waiter waiter : granted) {
+            if (waiter.expiry != null) {
+                waiter.expiry.dispose();
+            }
+            Timer.builder("nanobot.provider.queue.wait")
+                    .description("Time model calls waited for rate limit capacity")
+                    .tag("provider", provider)
+                    .tag("priority", waiter.priority.name().toLowerCase())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            waiter.sink.success();
+        }
+    }
+
+    private void expire(Waiter waiter, Duration deadline) {
+        synchronized (this) {
+            if (!queue.remove(waiter)) {
+                return;
+            }
+        }
+        meterRegistry.counter("nanobot.provider.queue.expired",
+                "provider", provider, "priority", waiter.priority.name().toLowerCase()).increment();
+        waiter.sink.error(new RejectedExecutionException(String.format(
+                "Rate limit queue of provider %s exceeded deadline %s", provider, deadline)));
+    }
+
+    private void remove(Waiter waiter) {
+        synchronized (this) {
+            queue.remove(waiter);
+        }
+        if (waiter.expiry != null) {
+            waiter.expiry.dispose();
+        }
+    }
+
+    private synchronized int queued() {
+        return queue.size();
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return (long) Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 每分钟补满的令牌桶，容量为 0 时不限制
+     */
+    private static class Bucket {
+        private final long capacity;
+        private double level;
+        private long refilledAt;
+
+        Bucket(long perMinute) {
+            this.capacity = perMinute;
+            this.level = perMinute;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * 单次请求最多按容量计，避免超大请求永远无法放行
+         */
+        long capped(long amount) {
+            return capacity > 0 ? Math.min(amount, capacity) : amount;
+        }
+
+        long waitNanos(long amount, long now) {
+            if (capacity <= 0) {
+                return 0;
+            }
+            refill(now);
+            if (level >= amount) {
+                return 0;
+            }
+            return (long) ((amount - level) * NANOS_PER_MINUTE / capacity);
+        }
+
+        void take(long amount, long now) {
+            if (capacity > 0) {
+                refill(now);
+                level -= amount;
+            }
+        }
+
+        void limitTo(long remaining, long now) {
+            if (capacity > 0) {
+                refill(now);
+                level = Math.min(level, remaining);
+            }
+        }
+
+        private void refill(long now) {
+            level = Math.min(capacity, level + (double) (now - refilledAt) * capacity / NANOS_PER_MINUTE);
+            refilledAt = now;
+        }
+    }
+
+    /**
+     * 排队中的请求
+     */
+    private static class Waiter {
+        private final MonoSink<Void> sink;
+        private final long tokens;
+        private final Priority priority;
+        private final long enqueuedAt;
+        private long sequence;
+        private Disposable expiry;
+
+        Waiter(MonoSink<Void> sink, long tokens, Priority priority, long enqueuedAt) {
+            this.sink = sink;
+            this.tokens = tokens;
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
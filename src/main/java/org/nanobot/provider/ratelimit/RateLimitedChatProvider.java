@@ -0,0 +1,91 @@
+package org.nanobot.provider.ratelimit;
+
+import org.nanobot.config.ProvidersConfig.RateLimitConfig;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ChatRequestContext;
+import org.nanobot.provider.ChatRequestContext.Priority;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.provider.TokenEstimator;
+import org.nanobot.tool.Tool;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 带客户端限流的 ChatProvider 装饰器
+ * 按请求上下文的优先级排队，获得配额后才发起调用
+ */
+public class RateLimitedChatProvider implements ChatProvider {
+
+    private final ChatProvider delegate;
+    private final ProviderRateLimiter limiter;
+    private final RateLimitConfig config;
+
+    public RateLimitedChatProvider(ChatProvider delegate, ProviderRateLimiter limiter, RateLimitConfig config) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.config = config;
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Mono.deferContextual(ctx -> {
+            Priority priority = priority(ChatRequestContext.from(ctx));
+            return limiter.acquire(estimate(messages, tools), priority, deadline(priority))
+                    .then(delegate.chat(messages, tools, options));
+        });
+    }
+
+    @Override
+    public Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Flux.deferContextual(ctx -> {
+            Priority priority = priority(ChatRequestContext.from(ctx));
+            return limiter.acquire(estimate(messages, tools), priority, deadline(priority))
+                    .thenMany(delegate.stream(messages, tools, options));
+        });
+    }
+
+    @Override
+    public Flux<String> chatStream(List<ChatMessage> messages, List<Tool> tools) {
+        return Flux.deferContextual(ctx -> {
+            Priority priority = priority(ChatRequestContext.from(ctx));
+            return limiter.acquire(estimate(messages, tools), priority, deadline(priority))
+                    .thenMany(delegate.chatStream(messages, tools));
+        });
+    }
+
+    private Priority priority(ChatRequestContext context) {
+        return context.getPriority() != null ? context.getPriority() : Priority.INTERACTIVE;
+    }
+
+    private Duration deadline(Priority priority) {
+        return switch (priority) {
+            case INTERACTIVE -> config.getInteractiveDeadline();
+            case SCHEDULED -> config.getScheduledDeadline();
+            case BATCH -> config.getBatchDeadline();
+        };
+    }
+
+    /**
+     * 估算请求 token：提示词加工具定义
+     */
+    private long estimate(List<ChatMessage> messages, List<Tool> tools) {
+        long estimated = TokenEstimator.estimate(messages);
+        if (tools != null) {
+            for (Tool tool : tools) {
+                estimated += TokenEstimator.estimate(tool.getDescription())
+                        + TokenEstimator.estimate(tool.getParameterSchema());
+            }
+        }
+        return estimated;
+    }
+}
@@ -0,0 +1,54 @@
+package org.nanobot.provider.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nanobot.config.ProvidersConfig;
+import org.nanobot.config.ProvidersConfig.RateLimitConfig;
+import org.nanobot.provider.ChatProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Provider 限流器注册表
+ */
+@Component
+public class RateLimiterRegistry {
+
+    private final RateLimitConfig config;
+    private final Map<String, ProviderRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public RateLimiterRegistry(ProvidersConfig providersConfig, MeterRegistry meterRegistry) {
+        this.config = providersConfig.getRateLimit();
+        if (config.isEnabled()) {
+            config.getProviders().forEach((name, limit) ->
+                    limiters.put(name, new ProviderRateLimiter(name, limit, meterRegistry)));
+        }
+    }
+
+    /**
+     * 为 Provider 加上限流，未启用或未配置配额时原样返回
+     *
+     * @param provider Provider 名称
+     * @param delegate Provider 实现
+     * @return ChatProvider
+     */
+    public ChatProvider limit(String provider, ChatProvider delegate) {
+        ProviderRateLimiter limiter = limiters.get(provider);
+        return limiter != null ? new RateLimitedChatProvider(delegate, limiter, config) : delegate;
+    }
+
+    /**
+     * 限流响应头的回调，用于 HTTP 实现反馈上游配额
+     *
+     * @param provider Provider 名称
+     * @return Consumer<HttpHeaders>
+     */
+    public Consumer<HttpHeaders> headerListener(String provider) {
+        ProviderRateLimiter limiter = limiters.get(provider);
+        return limiter != null ? limiter::onHeaders : headers -> {
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package org.nanobot.provider.resilience;
+
+/**
+ * Provider 处于熔断状态，调用被拒绝
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    public CallNotPermittedException(String provider) {
+        super("Circuit breaker of provider " + provider + " is open");
+    }
+}
@@ -0,0 +1,128 @@
+package org.nanobot.provider.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.ProvidersConfig.ResilienceConfig;
+
+/**
+ * 单个 Provider 的熔断器
+ * 统计最近 windowSize 次调用，失败率达到阈值时熔断；熔断期满后放行一次试探调用，成功则恢复，失败则继续熔断
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final ResilienceConfig config;
+    private final boolean[] window;
+    private int calls;
+    private int failures;
+    private int next;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, ResilienceConfig config) {
+        this.name = name;
+        this.config = config;
+        this.window = new boolean[Math.max(config.getWindowSize(), 1)];
+    }
+
+    /**
+     * 申请一次调用
+     *
+     * @return boolean 是否放行
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < config.getOpenDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            log.info("Circuit breaker {} half-open, allowing a trial call", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            log.info("Circuit breaker {} closed", name);
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (calls >= config.getMinimumCalls() && (double) failures / calls >= config.getFailureRateThreshold()) {
+            open();
+        }
+    }
+
+    /**
+     * 调用被取消或以非 Provider 原因失败，不计入统计，仅释放试探名额
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= config.getOpenDuration().toNanos()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        log.warn("Circuit breaker {} opened ({} failures in last {} calls)", name, failures, calls);
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        calls = 0;
+        failures = 0;
+        next = 0;
+        trialInFlight = false;
+    }
+}
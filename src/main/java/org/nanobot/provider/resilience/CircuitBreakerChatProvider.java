@@ -0,0 +1,98 @@
+package org.nanobot.provider.resilience;
+
+import org.nanobot.model.ChatMessage;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.tool.Tool;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 带熔断的 ChatProvider 装饰器，熔断期间直接以 CallNotPermittedException 失败
+ */
+public class CircuitBreakerChatProvider implements ChatProvider {
+
+    private final ChatProvider delegate;
+    private final CircuitBreaker breaker;
+
+    public CircuitBreakerChatProvider(ChatProvider delegate, CircuitBreaker breaker) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Mono.defer(() -> {
+            if (!breaker.tryAcquire()) {
+                return Mono.error(new CallNotPermittedException(breaker.getName()));
+            }
+            AtomicBoolean recorded = new AtomicBoolean();
+            return delegate.chat(messages, tools, options)
+                    .doOnSuccess(response -> {
+                        recorded.set(true);
+                        breaker.onSuccess();
+                    })
+                    .doOnError(e -> {
+                        recorded.set(true);
+                        if (ProviderErrors.isTransient(e)) {
+                            breaker.onFailure();
+                        } else {
+                            breaker.onIgnored();
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL && !recorded.get()) {
+                            breaker.onIgnored();
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Flux.defer(() -> {
+            if (!breaker.tryAcquire()) {
+                return Flux.error(new CallNotPermittedException(breaker.getName()));
+            }
+            return delegate.stream(messages, tools, options)
+                    .doOnComplete(breaker::onSuccess)
+                    .doOnError(e -> {
+                        if (ProviderErrors.isTransient(e)) {
+                            breaker.onFailure();
+                        } else {
+                            breaker.onIgnored();
+                        }
+                    })
+                    .doOnCancel(breaker::onIgnored);
+        });
+    }
+
+    @Override
+    public Flux<String> chatStream(List<ChatMessage> messages, List<Tool> tools) {
+        return Flux.defer(() -> {
+            if (!breaker.tryAcquire()) {
+                return Flux.error(new CallNotPermittedException(breaker.getName()));
+            }
+            return delegate.chatStream(messages, tools)
+                    .doOnComplete(breaker::onSuccess)
+                    .doOnError(e -> {
+                        if (ProviderErrors.isTransient(e)) {
+                            breaker.onFailure();
+                        } else {
+                            breaker.onIgnored();
+                        }
+                    })
+                    .doOnCancel(breaker::onIgnored);
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package org.nanobot.provider.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nanobot.config.ProvidersConfig;
+import org.nanobot.config.ProvidersConfig.ResilienceConfig;
+import org.nanobot.provider.ChatProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provider 熔断器注册表
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+    private final ResilienceConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry(ProvidersConfig providersConfig, MeterRegistry meterRegistry) {
+        this.config = providersConfig.getResilience();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 为 Provider 加上熔断，未启用容错时原样返回
+     *
+     * @param provider Provider 名称
+     * @param delegate Provider 实现
+     * @return ChatProvider
+     */
+    public ChatProvider protect(String provider, ChatProvider delegate) {
+        if (!config.isEnabled()) {
+            return delegate;
+        }
+        return new CircuitBreakerChatProvider(delegate, breaker(provider));
+    }
+
+    /**
+     * Provider 当前是否熔断
+     */
+    public boolean isOpen(String provider) {
+        CircuitBreaker breaker = breakers.get(provider);
+        return breaker != null && breaker.getState() == CircuitBreaker.State.OPEN;
+    }
+
+    /**
+     * 各 Provider 的熔断器状态
+     *
+     * @return Map<String, CircuitBreaker.State> Provider 名称 → 状态
+     */
+    public Map<String, CircuitBreaker.State> getStates() {
+        Map<String, CircuitBreaker.State> states = new TreeMap<>();
+        breakers.forEach((name, breaker) -> states.put(name, breaker.getState()));
+        return states;
+    }
+
+    private CircuitBreaker breaker(String provider) {
+        return breakers.computeIfAbsent(provider, name -> {
+            CircuitBreaker breaker = new CircuitBreaker(name, config);
+            Gauge.builder("nanobot.provider.breaker.state", breaker, b -> b.getState().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+}
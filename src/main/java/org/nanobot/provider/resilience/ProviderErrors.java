@@ -0,0 +1,62 @@
+package org.nanobot.provider.resilience;
+
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Provider 错误分类
+ */
+public final class ProviderErrors {
+
+    private ProviderErrors() {
+    }
+
+    /**
+     * 是否为上游的临时故障，只有这类错误计入熔断统计并允许重试：
+     * 超时、连接错误、429、5xx，以及 Spring AI 标记为临时的错误。
+     * 其余错误（参数校验、4xx、程序错误等）重试也不会成功，默认不属于临时故障；
+     * 本地限流排队超时 (RejectedExecutionException) 和熔断拒绝也不属于上游故障
+     */
+    public static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() != cause ? cause.getCause() : null) {
+            if (cause instanceof CallNotPermittedException
+                    || cause instanceof RejectedExecutionException
+                    || cause instanceof NonTransientAiException) {
+                return false;
+            }
+            if (cause instanceof WebClientResponseException response) {
+                return isTransientStatus(response.getStatusCode().value());
+            }
+            if (cause instanceof RestClientResponseException response) {
+                return isTransientStatus(response.getStatusCode().value());
+            }
+            if (cause instanceof TransientAiException
+                    || cause instanceof TimeoutException
+                    || cause instanceof WebClientRequestException
+                    || cause instanceof ResourceAccessException
+                    || cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否可以改用备用模型：临时故障，或 Provider 熔断、本地限流排队超时
+     */
+    public static boolean isFallbackable(Throwable e) {
+        return e instanceof CallNotPermittedException || e instanceof RejectedExecutionException || isTransient(e);
+    }
+
+    private static boolean isTransientStatus(int status) {
+        return status == 429 || status >= 500;
+    }
+}
@@ -0,0 +1,29 @@
+package org.nanobot.provider.resilience;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Provider 健康状态
+ * 部分 Provider 熔断时仍为 UP（可降级到其他 Provider 或备用模型），全部熔断时为 DOWN
+ */
+@Component("providers")
+@RequiredArgsConstructor
+public class ProviderHealthIndicator implements HealthIndicator {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Override
+    public Health health() {
+        Map<String, CircuitBreaker.State> states = circuitBreakerRegistry.getStates();
+        boolean allOpen = !states.isEmpty()
+                && states.values().stream().allMatch(state -> state == CircuitBreaker.State.OPEN);
+        return (allOpen ? Health.down() : Health.up())
+                .withDetails(Map.copyOf(states))
+                .build();
+    }
+}
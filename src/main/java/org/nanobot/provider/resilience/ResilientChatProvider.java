@@ -0,0 +1,181 @@
+package org.nanobot.provider.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.AgentConfig;
+import org.nanobot.config.ProvidersConfig.ResilienceConfig;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ChatRequestContext;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.tool.Tool;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 带重试和降级的 ChatProvider 装饰器
+ * 临时故障按去相关抖动 (decorrelated jitter) 退避重试，重试受全局预算限制；
+ * 同一模型重试后仍失败、熔断或限流排队超时时，按请求所属 Agent 的 fallbackModels 依次尝试备用模型；
+ * 参数错误等非临时故障直接返回给调用方
+ */
+@Slf4j
+public class ResilientChatProvider implements ChatProvider {
+
+    private final ChatProvider delegate;
+    private final ResilienceConfig config;
+    private final AgentConfig agentConfig;
+    private final MeterRegistry meterRegistry;
+    private final RetryBudget retryBudget;
+
+    public ResilientChatProvider(ChatProvider delegate,
+                                 ResilienceConfig config,
+                                 AgentConfig agentConfig,
+                                 MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.config = config;
+        this.agentConfig = agentConfig;
+        this.meterRegistry = meterRegistry;
+        this.retryBudget = new RetryBudget(config.getRetryBudgetRatio(), config.getRetryBudgetMax());
+        Gauge.builder("nanobot.provider.retry.budget", retryBudget, RetryBudget::getTokens)
+                .description("Retries currently allowed by the global retry budget")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Mono.deferContextual(ctx -> {
+            String agent = ChatRequestContext.from(ctx).getAgent();
+            return attempt(fallbackChain(agent, options), 0, messages, tools, options);
+        });
+    }
+
+    /**
+     * 流式调用只在尚未输出任何数据块时重试或降级，已开始输出后的失败直接传给调用方
+     */
+    @Override
+    public Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Flux.deferContextual(ctx -> {
+            String agent = ChatRequestContext.from(ctx).getAgent();
+            return attemptStream(fallbackChain(agent, options), 0, messages, tools, options);
+        });
+    }
+
+    @Override
+    public Flux<String> chatStream(List<ChatMessage> messages, List<Tool> tools) {
+        return delegate.chatStream(messages, tools);
+    }
+
+    /**
+     * 调用降级链中的第 index 个模型，失败时继续下一个
+     */
+    private Mono<ChatResponse> attempt(List<String> chain, int index, List<ChatMessage> messages,
+                                       List<Tool> tools, ModelOptions options) {
+        String model = chain.get(index);
+        ModelOptions modelOptions = index == 0
+                ? options
+                : options != null ? options.toBuilder().model(model).build() : ModelOptions.of(model, null);
+
+        Mono<ChatResponse> call = withRetry(delegate.chat(messages, tools, modelOptions));
+        if (index + 1 >= chain.size()) {
+            return call;
+        }
+        return call.onErrorResume(ProviderErrors::isFallbackable, e -> {
+            String next = chain.get(index + 1);
+            log.warn("Model {} failed ({}), falling back to {}", model, e.getMessage(), next);
+            meterRegistry.counter("nanobot.provider.fallback", "from", String.valueOf(model), "to", next).increment();
+            return attempt(chain, index + 1, messages, tools, options);
+        });
+    }
+
+    /**
+     * 流式调用降级链中的第 index 个模型
+     */
+    private Flux<ChatChunk> attemptStream(List<String> chain, int index, List<ChatMessage> messages,
+                                          List<Tool> tools, ModelOptions options) {
+        String model = chain.get(index);
+        ModelOptions modelOptions = index == 0
+                ? options
+                : options != null ? options.toBuilder().model(model).build() : ModelOptions.of(model, null);
+
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            retryBudget.deposit();
+            Flux<ChatChunk> call = delegate.stream(messages, tools, modelOptions)
+                    .doOnNext(chunk -> emitted.set(true))
+                    .retryWhen(retrySpec(emitted::get));
+            if (index + 1 >= chain.size()) {
+                return call;
+            }
+            return call.onErrorResume(e -> !emitted.get() && ProviderErrors.isFallbackable(e), e -> {
+                String next = chain.get(index + 1);
+                log.warn("Model {} failed ({}), falling back to {}", model, e.getMessage(), next);
+                meterRegistry.counter("nanobot.provider.fallback", "from", String.valueOf(model), "to", next).increment();
+                return attemptStream(chain, index + 1, messages, tools, options);
+            });
+        });
+    }
+
+    private Mono<ChatResponse> withRetry(Mono<ChatResponse> call) {
+        return Mono.defer(() -> {
+            retryBudget.deposit();
+            return call.retryWhen(retrySpec(() -> false));
+        });
+    }
+
+    /**
+     * 对临时故障按去相关抖动退避重试：delay = min(cap, random(base, previous * 3))
+     *
+     * @param emitted 是否已向调用方输出数据，已输出时不再重试
+     */
+    private Retry retrySpec(BooleanSupplier emitted) {
+        long base = config.getRetryBaseDelay().toMillis();
+        long cap = config.getRetryMaxDelay().toMillis();
+        long[] previous = {base};
+
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            Throwable e = signal.failure();
+            if (signal.totalRetries() + 1 >= config.getMaxAttempts() || !ProviderErrors.isTransient(e)
+                    || emitted.getAsBoolean()) {
+                return Mono.error(e);
+            }
+            if (!retryBudget.tryWithdraw()) {
+                meterRegistry.counter("nanobot.provider.retry.budget_exhausted").increment();
+                return Mono.error(e);
+            }
+            long delay = Math.min(cap, ThreadLocalRandom.current().nextLong(base, Math.max(previous[0] * 3, base + 1)));
+            previous[0] = delay;
+            meterRegistry.counter("nanobot.provider.retries").increment();
+            log.debug("Retrying model call in {}ms after: {}", delay, e.getMessage());
+            return Mono.delay(Duration.ofMillis(delay));
+        }));
+    }
+
+    /**
+     * 降级链：请求的模型在前，之后为 Agent 配置的备用模型
+     */
+    private List<String> fallbackChain(String agent, ModelOptions options) {
+        List<String> chain = new ArrayList<>();
+        chain.add(options != null ? options.getModel() : null);
+        for (String model : agentConfig.getAgent(agent).getFallbackModels()) {
+            if (!chain.contains(model)) {
+                chain.add(model);
+            }
+        }
+        return chain;
+    }
+}
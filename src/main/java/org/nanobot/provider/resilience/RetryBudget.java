@@ -0,0 +1,43 @@
+package org.nanobot.provider.resilience;
+
+/**
+ * 全局重试预算
+ * 每次请求存入 ratio 个额度，每次重试消耗 1 个，额度不足时不再重试，
+ * 使重试量不超过请求量的固定比例，避免上游故障时重试放大流量
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double max;
+    private double tokens;
+
+    public RetryBudget(double ratio, int max) {
+        this.ratio = ratio;
+        this.max = max;
+        this.tokens = max;
+    }
+
+    /**
+     * 记录一次请求
+     */
+    public synchronized void deposit() {
+        tokens = Math.min(max, tokens + ratio);
+    }
+
+    /**
+     * 申请一次重试
+     *
+     * @return boolean 是否还有额度
+     */
+    public synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
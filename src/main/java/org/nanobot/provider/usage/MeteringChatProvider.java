@@ -0,0 +1,76 @@
+package org.nanobot.provider.usage;
+
+import org.nanobot.model.ChatMessage;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ChatRequestContext;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.provider.RoutingChatProvider;
+import org.nanobot.provider.TokenUsage;
+import org.nanobot.tool.Tool;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 用量计量 ChatProvider 装饰器
+ * 每次成功的模型调用（含重试和降级后的调用）按请求上下文和实际模型记入 UsageLedger，
+ * 经模型组路由的调用记为选中候选的模型；
+ * 部分网关在多个数据块上携带累计用量，流式调用只在完成时记录最后一次出现的用量
+ */
+public class MeteringChatProvider implements ChatProvider {
+
+    private final ChatProvider delegate;
+    private final UsageLedger usageLedger;
+
+    public MeteringChatProvider(ChatProvider delegate, UsageLedger usageLedger) {
+        this.delegate = delegate;
+        this.usageLedger = usageLedger;
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public Mono<ChatResponse> chat(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Mono.deferContextual(ctx -> {
+            AtomicReference<String> served = new AtomicReference<>(options != null ? options.getModel() : null);
+            return delegate.chat(messages, tools, options)
+                    .contextWrite(RoutingChatProvider.trackServedModel(served))
+                    .doOnNext(response -> {
+                        if (response.getUsage() != null) {
+                            usageLedger.record(ChatRequestContext.from(ctx), served.get(), response.getUsage());
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public Flux<ChatChunk> stream(List<ChatMessage> messages, List<Tool> tools, ModelOptions options) {
+        return Flux.deferContextual(ctx -> {
+            AtomicReference<String> served = new AtomicReference<>(options != null ? options.getModel() : null);
+            AtomicReference<TokenUsage> usage = new AtomicReference<>();
+            return delegate.stream(messages, tools, options)
+                    .contextWrite(RoutingChatProvider.trackServedModel(served))
+                    .doOnNext(chunk -> {
+                        if (chunk.usage() != null) {
+                            usage.set(chunk.usage());
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (usage.get() != null) {
+                            usageLedger.record(ChatRequestContext.from(ctx), served.get(), usage.get());
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public Flux<String> chatStream(List<ChatMessage> messages, List<Tool> tools) {
+        return delegate.chatStream(messages, tools);
+    }
+}
@@ -0,0 +1,287 @@
+package org.nanobot.provider.usage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.AgentConfig;
+import org.nanobot.config.UsageConfig;
+import org.nanobot.config.UsageConfig.BudgetAction;
+import org.nanobot.config.UsageConfig.BudgetConfig;
+import org.nanobot.provider.ChatRequestContext;
+import org.nanobot.provider.TokenUsage;
+import org.nanobot.runtime.BlockingSchedulers;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token 用量账本
+ * 每次模型调用的输入、输出和缓存命中 token 按会话、用户、频道、模型四个维度累计到当天的 LongAdder 计数器，
+ * 记录路径无锁；计数器定期写入 usage-yyyy-MM-dd.json，启动时读回当天用量，每日预算在重启后仍然有效。
+ * 频道和模型维度同时以 nanobot.usage.tokens 指标上报
+ */
+@Slf4j
+@Component
+public class UsageLedger {
+
+    public static final String SESSION = "session";
+    public static final String USER = "user";
+    public static final String CHANNEL = "channel";
+    public static final String MODEL = "model";
+
+    private static final String UNKNOWN = "unknown";
+
+    private final UsageConfig config;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path usageDir;
+
+    private final AtomicReference<Day> today = new AtomicReference<>();
+
+    /**
+     * 跨天后尚未写盘的前一天用量
+     */
+    private final AtomicReference<Day> previous = new AtomicReference<>();
+
+    private final Disposable flusher;
+
+    public UsageLedger(UsageConfig config,
+                       AgentConfig agentConfig,
+                       MeterRegistry meterRegistry,
+                       BlockingSchedulers blockingSchedulers) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.usageDir = config.getDirectory() != null && !config.getDirectory().isBlank()
+                ? Paths.get(config.getDirectory())
+                : Paths.get(agentConfig.getDefaultAgent().getWorkspace(), "usage");
+        this.today.set(load(LocalDate.now()));
+
+        long interval = config.getFlushInterval().toMillis();
+        this.flusher = blockingSchedulers.disk().schedulePeriodically(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次模型调用的用量
+     *
+     * @param context 请求上下文
+     * @param model   模型名称
+     * @param usage   token 用量
+     */
+    public void record(ChatRequestContext context, String model, TokenUsage usage) {
+        Day day = current();
+        String channel = orUnknown(context.getChannelType());
+        model = orUnknown(model);
+
+        day.totals(SESSION, orUnknown(context.getSessionId())).add(usage);
+        day.totals(USER, orUnknown(context.getUserId())).add(usage);
+        day.totals(CHANNEL, channel).add(usage);
+        day.totals(MODEL, model).add(usage);
+
+        meterRegistry.counter("nanobot.usage.tokens", "type", "prompt", "model", model, "channel", channel)
+                .increment(usage.promptTokens());
+        meterRegistry.counter("nanobot.usage.tokens", "type", "completion", "model", model, "channel", channel)
+                .increment(usage.completionTokens());
+        meterRegistry.counter("nanobot.usage.tokens", "type", "cached", "model", model, "channel", channel)
+                .increment(usage.cachedTokens());
+    }
+
+    /**
+     * 当天累计的 token 数（输入 + 输出）
+     *
+     * @param dimension 维度 (session / user / channel / model)
+     * @param key       维度取值
+     * @return long
+     */
+    public long getDailyTokens(String dimension, String key) {
+        Totals totals = current().dimension(dimension).get(key);
+        return totals != null ? totals.total() : 0;
+    }
+
+    /**
+     * 检查用户和会话的每日预算
+     *
+     * @param sessionId 会话ID
+     * @param userId    用户ID
+     * @return 超出预算时返回处理方式，未超出返回 null
+     */
+    public BudgetAction checkBudget(String sessionId, String userId) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        BudgetConfig budget = config.getBudget();
+        long userLimit = userId != null ? budget.getUsers().getOrDefault(userId, budget.getUserDailyTokens()) : 0;
+        boolean exceeded = (userLimit > 0 && getDailyTokens(USER, userId) >= userLimit)
+                || (budget.getSessionDailyTokens() > 0 && sessionId != null
+                && getDailyTokens(SESSION, sessionId) >= budget.getSessionDailyTokens());
+        if (!exceeded) {
+            return null;
+        }
+        meterRegistry.counter("nanobot.usage.budget.exceeded", "action", budget.getAction().name().toLowerCase()).increment();
+        return budget.getAction();
+    }
+
+    /**
+     * 当天各维度用量快照
+     *
+     * @return 维度 → 取值 → {prompt, completion, cached, calls}
+     */
+    public Map<String, Map<String, Map<String, Long>>> snapshot() {
+        return current().snapshot();
+    }
+
+    /**
+     * 写盘：当天用量，以及跨天时前一天的最终用量
+     */
+    public void flush() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Day last = previous.getAndSet(null);
+        if (last != null) {
+            write(last);
+        }
+        write(today.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.dispose();
+        flush();
+    }
+
+    /**
+     * 当天的计数器，跨天时切换到新的一天
+     */
+    private Day current() {
+        LocalDate date = LocalDate.now();
+        Day day = today.get();
+        if (day.date.equals(date)) {
+            return day;
+        }
+        Day next = new Day(date);
+        if (today.compareAndSet(day, next)) {
+            previous.set(day);
+            return next;
+        }
+        return today.get();
+    }
+
+    private void write(Day day) {
+        Path file = usageDir.resolve(fileName(day.date));
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(usageDir);
+            Files.write(tempFile, objectMapper.writeValueAsBytes(day.snapshot()));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to flush usage ledger to {}", file, e);
+        }
+    }
+
+    private Day load(LocalDate date) {
+        Day day = new Day(date);
+        Path file = usageDir.resolve(fileName(date));
+        if (!Files.exists(file)) {
+            return day;
+        }
+        try {
+            Map<String, Map<String, Map<String, Long>>> saved = objectMapper.readValue(file.toFile(),
+                    new TypeReference<>() {});
+            saved.forEach((dimension, entries) -> entries.forEach((key, values) ->
+                    day.totals(dimension, key).restore(values)));
+            log.info("Loaded usage ledger for {}", date);
+        } catch (IOException e) {
+            log.warn("Failed to load usage ledger {}: {}", file, e.getMessage());
+        }
+        return day;
+    }
+
+    private static String fileName(LocalDate date) {
+        return "usage-" + date + ".json";
+    }
+
+    private static String orUnknown(String value) {
+        return value != null && !value.isBlank() ? value : UNKNOWN;
+    }
+
+    /**
+     * 一天的用量：维度 → 取值 → 计数器
+     */
+    private static class Day {
+        private final LocalDate date;
+        private final Map<String, Map<String, Totals>> dimensions = new ConcurrentHashMap<>();
+
+        Day(LocalDate date) {
+            this.date = date;
+        }
+
+        Map<String, Totals> dimension(String dimension) {
+            return dimensions.computeIfAbsent(dimension, k -> new ConcurrentHashMap<>());
+        }
+
+        Totals totals(String dimension, String key) {
+            return dimension(dimension).computeIfAbsent(key, k -> new Totals());
+        }
+
+        Map<String, Map<String, Map<String, Long>>> snapshot() {
+            Map<String, Map<String, Map<String, Long>>> result = new LinkedHashMap<>();
+            dimensions.forEach((dimension, entries) -> {
+                Map<String, Map<String, Long>> values = new LinkedHashMap<>();
+                entries.forEach((key, totals) -> values.put(key, totals.snapshot()));
+                result.put(dimension, values);
+            });
+            return result;
+        }
+    }
+
+    /**
+     * 单个维度取值的累计用量
+     */
+    private static class Totals {
+        private final LongAdder prompt = new LongAdder();
+        private final LongAdder completion = new LongAdder();
+        private final LongAdder cached = new LongAdder();
+        private final LongAdder calls = new LongAdder();
+
+        void add(TokenUsage usage) {
+            prompt.add(usage.promptTokens());
+            completion.add(usage.completionTokens());
+            cached.add(usage.cachedTokens());
+            calls.increment();
+        }
+
+        void restore(Map<String, Long> values) {
+            prompt.add(values.getOrDefault("prompt", 0L));
+            completion.add(values.getOrDefault("completion", 0L));
+            cached.add(values.getOrDefault("cached", 0L));
+            calls.add(values.getOrDefault("calls", 0L));
+        }
+
+        long total() {
+            return prompt.sum() + completion.sum();
+        }
+
+        Map<String, Long> snapshot() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("prompt", prompt.sum());
+            values.put("completion", completion.sum());
+            values.put("cached", cached.sum());
+            values.put("calls", calls.sum());
+            return values;
+        }
+    }
+}
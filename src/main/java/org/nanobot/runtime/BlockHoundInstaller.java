@@ -0,0 +1,74 @@
+package org.nanobot.runtime;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.RuntimeConfig;
+import org.nanobot.config.RuntimeConfig.BlockHoundMode;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 阻塞调用检测
+ * 开启后由 BlockHound 监控 parallel、Netty 事件循环等非阻塞线程，发现阻塞调用时按模式记录或抛错。
+ * 阻塞调用应通过 {@link BlockingSchedulers} 切换到对应调度器执行
+ * <p>
+ * BlockHound 为 provided 依赖，不打入发布包；需要在运行时检测时将 blockhound 加入 classpath
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlockHoundInstaller {
+
+    private static volatile boolean installed;
+
+    private final RuntimeConfig runtimeConfig;
+    private final MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void install() {
+        BlockHoundMode mode = runtimeConfig.getBlockHound();
+        if (mode == BlockHoundMode.OFF) {
+            return;
+        }
+        if (!ClassUtils.isPresent("reactor.blockhound.BlockHound", getClass().getClassLoader())) {
+            log.warn("BlockHound mode {} requested but blockhound is not on the classpath, skipping", mode);
+            return;
+        }
+
+        synchronized (BlockHoundInstaller.class) {
+            if (installed) {
+                return;
+            }
+            Agent.install(mode, meterRegistry);
+            installed = true;
+        }
+        log.info("BlockHound installed in {} mode", mode);
+    }
+
+    /**
+     * 引用 BlockHound 的代码单独成类，classpath 中没有 blockhound 时不会被加载
+     */
+    private static final class Agent {
+
+        static void install(BlockHoundMode mode, MeterRegistry meterRegistry) {
+            BlockHound.builder()
+                    // SecureRandom 首次初始化会读取熵源
+                    .allowBlockingCallsInside("java.util.UUID", "randomUUID")
+                    .blockingMethodCallback(method -> {
+                        meterRegistry.counter("nanobot.runtime.blocking.calls", "method", method.toString())
+                                .increment();
+                        if (mode == BlockHoundMode.FAIL) {
+                            throw new BlockingOperationError(method);
+                        }
+                        log.warn("Blocking call {} on non-blocking thread {}", method,
+                                Thread.currentThread().getName(), new Exception("Blocking call stack"));
+                    })
+                    .install();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.nanobot.runtime;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.RuntimeConfig;
+import org.nanobot.config.RuntimeConfig.SchedulerConfig;
+import org.nanobot.config.RuntimeConfig.ThreadMode;
+import org.springframework.stereotype.Component;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 阻塞任务调度器拓扑
+ * 阻塞调用按类型通过 subscribeOn 切换到各自的调度器，互不挤占，也不占用 Netty 事件循环或 parallel 线程：
+ * <ul>
+ *     <li>llm: 模型 HTTP 调用</li>
+ *     <li>tool: 工具执行（文件、命令）</li>
+ *     <li>disk: 会话、上下文和检查点读写</li>
+ *     <li>channel: 频道消息发送</li>
+ * </ul>
+ * 每个调度器单独配置容量，并以 nanobot.scheduler.tasks.* 指标（按 name 标签区分）上报提交数、排队和执行耗时
+ * <p>
+ * VIRTUAL 模式在 Java 21+ 上每个任务使用一个虚拟线程，Java 17 上回退为有界弹性平台线程池
+ */
+@Slf4j
+@Component
+public class BlockingSchedulers {
+
+    private static final String METRICS_PREFIX = "nanobot";
+
+    private final Scheduler llm;
+    private final Scheduler tool;
+    private final Scheduler disk;
+    private final Scheduler channel;
+    private final boolean virtual;
+
+    public BlockingSchedulers(RuntimeConfig runtimeConfig, MeterRegistry meterRegistry) {
+        this.virtual = runtimeConfig.getThreadMode() == ThreadMode.VIRTUAL && supportsVirtualThreads();
+
+        this.llm = create("llm", runtimeConfig.getLlm(), meterRegistry);
+        this.tool = create("tool", runtimeConfig.getTool(), meterRegistry);
+        this.disk = create("disk", runtimeConfig.getDisk(), meterRegistry);
+        this.channel = create("channel", runtimeConfig.getChannel(), meterRegistry);
+
+        log.info("Blocking work runs on {}", virtual ? "virtual threads" : "bounded elastic platform threads");
+    }
+
+    /**
+     * 模型调用调度器
+     */
+    public Scheduler llm() {
+        return llm;
+    }
+
+    /**
+     * 工具执行调度器
+     */
+    public Scheduler tool() {
+        return tool;
+    }
+
+    /**
+     * 磁盘读写调度器
+     */
+    public Scheduler disk() {
+        return disk;
+    }
+
+    /**
+     * 频道消息发送调度器
+     */
+    public Scheduler channel() {
+        return channel;
+    }
+
+    /**
+     * 是否运行在虚拟线程上
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * 是否已关闭（停机过程中）
+     */
+    public boolean isDisposed() {
+        return llm.isDisposed() || tool.isDisposed() || disk.isDisposed() || channel.isDisposed();
+    }
+
+    @PreDestroy
+    public void dispose() {
+        llm.dispose();
+        tool.dispose();
+        disk.dispose();
+        channel.dispose();
+    }
+
+    /**
+     * 创建带指标的命名调度器
+     */
+    private Scheduler create(String name, SchedulerConfig config, MeterRegistry meterRegistry) {
+        String threadName = "nanobot-" + name;
+        Scheduler scheduler = virtual
+                ? Schedulers.fromExecutorService(newVirtualThreadExecutor(), threadName)
+                : Schedulers.newBoundedElastic(config.getThreadCap(), config.getQueueCap(), threadName);
+
+        if (!virtual) {
+            log.debug("Scheduler {} capped at {} threads, {} queued tasks per thread",
+                    name, config.getThreadCap(), config.getQueueCap());
+        }
+        return Micrometer.timedScheduler(scheduler, meterRegistry, METRICS_PREFIX, Tags.of("name", name));
+    }
+
+    /**
+     * 检查当前 JDK 是否支持虚拟线程
+     */
+    private boolean supportsVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            log.warn("Virtual threads require Java 21+ (running {}), falling back to platform threads",
+                    System.getProperty("java.version"));
+            return false;
+        }
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，保持 Java 17 下可编译运行
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.nanobot.runtime;
+
+import okhttp3.Dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 带 TTL 的 OkHttp DNS 缓存
+ * 频道和模型 API 的主机数量很少，缓存解析结果避免每次新建连接都走一次系统解析
+ */
+public class CachingDns implements Dns {
+
+    private final Dns delegate;
+    private final long ttlNanos;
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+
+    public CachingDns(Dns delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        long now = System.nanoTime();
+        Entry entry = cache.get(hostname);
+        if (entry != null && now - entry.resolvedAt < ttlNanos) {
+            return entry.addresses;
+        }
+        List<InetAddress> addresses = delegate.lookup(hostname);
+        cache.put(hostname, new Entry(addresses, now));
+        return addresses;
+    }
+
+    private record Entry(List<InetAddress> addresses, long resolvedAt) {
+    }
+}
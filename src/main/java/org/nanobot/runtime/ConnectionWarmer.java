@@ -0,0 +1,105 @@
+package org.nanobot.runtime;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.nanobot.channel.Channel;
+import org.nanobot.channel.ChannelManager;
+import org.nanobot.config.ProvidersConfig;
+import org.nanobot.config.RuntimeConfig;
+import org.nanobot.provider.ChatProviderResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 启动预热
+ * 应用就绪后向已启用的 Provider 和频道主机各发一个 HEAD 请求，提前完成 DNS 解析、TCP 和 TLS 握手，
+ * 连接留在共享连接池中供首个真实请求复用。响应状态不重要，失败只记日志
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConnectionWarmer {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final RuntimeConfig runtimeConfig;
+    private final ProvidersConfig providersConfig;
+    private final ChatProviderResolver chatProviderResolver;
+    private final ChannelManager channelManager;
+    private final OkHttpClient okHttpClient;
+    private final WebClient.Builder webClientBuilder;
+
+    @Value("${spring.ai.zhipuai.base-url:}")
+    private String zhipuBaseUrl;
+
+    @Value("${spring.ai.zhipuai.api-key:}")
+    private String zhipuApiKey;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!runtimeConfig.getHttp().isWarmup()) {
+            return;
+        }
+
+        // OpenAI 兼容 Provider 和智谱走 Reactor Netty 连接池
+        Set<String> providerUrls = new LinkedHashSet<>(chatProviderResolver.getBaseUrls().values());
+        if (providersConfig.getGlm().isEnabled() && !zhipuApiKey.isBlank() && !zhipuBaseUrl.isBlank()) {
+            providerUrls.add(zhipuBaseUrl);
+        }
+        WebClient webClient = webClientBuilder.build();
+        for (String baseUrl : providerUrls) {
+            long start = System.nanoTime();
+            webClient.head()
+                    .uri(baseUrl)
+                    .exchangeToMono(response -> response.releaseBody())
+                    .timeout(TIMEOUT)
+                    .subscribe(null,
+                            e -> log.debug("Connection warm-up to {} failed: {}", baseUrl, e.getMessage()),
+                            () -> log.info("Warmed connection to {} in {}ms", baseUrl, elapsedMillis(start)));
+        }
+
+        // 频道走 OkHttp 连接池
+        Set<String> okHttpUrls = new LinkedHashSet<>();
+        for (Channel channel : channelManager.getAllChannels()) {
+            okHttpUrls.addAll(channel.getApiBaseUrls());
+        }
+        for (String url : okHttpUrls) {
+            warmUp(url);
+        }
+    }
+
+    private void warmUp(String url) {
+        long start = System.nanoTime();
+        Request request = new Request.Builder().url(url).head().build();
+        Call call = okHttpClient.newBuilder().callTimeout(TIMEOUT).build().newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                log.info("Warmed connection to {} in {}ms", url, elapsedMillis(start));
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                log.debug("Connection warm-up to {} failed: {}", url, e.getMessage());
+            }
+        });
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,122 @@
+package org.nanobot.runtime;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.agent.AgentDispatcher;
+import org.nanobot.agent.InboundCoalescer;
+import org.nanobot.agent.SessionManager;
+import org.nanobot.channel.ChannelManager;
+import org.nanobot.config.RuntimeConfig;
+import org.nanobot.model.Message;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * 停机排空协调器
+ * server.shutdown=graceful 只覆盖 HTTP 请求；停机时依次停止启动新轮次、等待执行中的轮次和出站发送、
+ * 停止频道，最后持久化仍在排队的入站消息，下次启动时重放。超时未完成的轮次不取消，由检查点恢复
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GracefulShutdown implements SmartLifecycle {
+
+    /**
+     * 排在 Web 服务器优雅停机和停止之后
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final long POLL_MILLIS = 100;
+
+    private final AgentDispatcher agentDispatcher;
+    private final InboundCoalescer inboundCoalescer;
+    private final ChannelManager channelManager;
+    private final SessionManager sessionManager;
+    private final RuntimeConfig runtimeConfig;
+    private final MeterRegistry meterRegistry;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        Duration timeout = runtimeConfig.getShutdown().getDrainTimeout();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        log.info("Draining agent work (timeout {})", timeout);
+
+        // 1. 不再启动新轮次，合并缓冲中的消息立即提交（进入排队）
+        agentDispatcher.beginDrain();
+        inboundCoalescer.flushAll();
+
+        // 2. 等待执行中的轮次（含会话写入）和出站发送
+        boolean turnsDone = await("turns", agentDispatcher::getInFlightTurns, deadline);
+        boolean sendsDone = await("outbound sends", channelManager::getPendingSends, deadline);
+
+        // 3. 停止频道，之后不会再有入站消息
+        try {
+            channelManager.stopAll().block(Duration.ofSeconds(5));
+        } catch (Exception e) {
+            log.warn("Failed to stop channels cleanly", e);
+        }
+
+        // 4. 持久化剩余排队消息
+        List<Message> pending = agentDispatcher.takePending();
+        sessionManager.savePendingInbound(pending);
+        meterRegistry.counter("nanobot.shutdown.messages.persisted").increment(pending.size());
+
+        if (!turnsDone) {
+            log.warn("{} turns still running at drain deadline, they will resume from checkpoints",
+                    agentDispatcher.getInFlightTurns());
+        }
+        if (!sendsDone) {
+            log.warn("{} outbound sends still pending at drain deadline", channelManager.getPendingSends());
+        }
+        log.info("Drain finished, {} pending inbound messages persisted for replay", pending.size());
+        running = false;
+    }
+
+    /**
+     * 等待计数归零或到达截止时间
+     *
+     * @return boolean 是否已归零
+     */
+    private boolean await(String what, IntSupplier remaining, long deadline) {
+        int count = remaining.getAsInt();
+        if (count > 0) {
+            log.info("Waiting for {} {}", count, what);
+        }
+        while (count > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            count = remaining.getAsInt();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
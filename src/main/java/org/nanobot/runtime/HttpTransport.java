@@ -0,0 +1,178 @@
+package org.nanobot.runtime;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.nanobot.config.ProvidersConfig;
+import org.nanobot.config.RuntimeConfig;
+import org.nanobot.config.RuntimeConfig.HttpConfig;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorNettyClientRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共享 HTTP 传输层
+ * <ul>
+ *     <li>OkHttp: 频道 API 调用</li>
+ *     <li>Reactor Netty: OpenAI 兼容 Provider (WebClient) 和智谱 (Spring AI RestClient)，共用同一连接池</li>
+ * </ul>
+ * 两者都按主机维护连接池、优先协商 HTTP/2、缓存 DNS，并以相同的保活时间回收空闲连接。
+ * OkHttp 连接池以 nanobot.http.pool.connections、连接获取耗时以 nanobot.http.connection.acquire 上报；
+ * Reactor Netty 连接池以 reactor.netty.connection.provider.* 上报（经 Micrometer 全局注册表）。
+ * 两者的读超时都取 nanobot.providers.http.timeout，长耗时的模型调用不会被客户端默认的 10s 读超时中断
+ */
+@Slf4j
+@Configuration
+public class HttpTransport {
+
+    private static final String POOL_NAME = "nanobot";
+
+    @Bean
+    public OkHttpClient okHttpClient(RuntimeConfig runtimeConfig, ProvidersConfig providersConfig,
+                                     MeterRegistry meterRegistry) {
+        HttpConfig config = runtimeConfig.getHttp();
+        Duration timeout = providersConfig.getHttp().getTimeout();
+
+        ConnectionPool connectionPool = new ConnectionPool(
+                config.getMaxIdleConnections(), config.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(config.getMaxConnectionsPerHost());
+
+        Gauge.builder("nanobot.http.pool.connections", connectionPool, ConnectionPool::connectionCount)
+                .description("Pooled HTTP connections")
+                .tags("client", "okhttp", "state", "total")
+                .register(meterRegistry);
+        Gauge.builder("nanobot.http.pool.connections", connectionPool, ConnectionPool::idleConnectionCount)
+                .description("Pooled HTTP connections")
+                .tags("client", "okhttp", "state", "idle")
+                .register(meterRegistry);
+        Gauge.builder("nanobot.http.pool.connections", connectionPool,
+                        pool -> pool.connectionCount() - pool.idleConnectionCount())
+                .description("Pooled HTTP connections")
+                .tags("client", "okhttp", "state", "active")
+                .register(meterRegistry);
+
+        return new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .protocols(config.isHttp2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                .pingInterval(config.getPingInterval())
+                .connectTimeout(config.getConnectTimeout())
+                .readTimeout(timeout)
+                .writeTimeout(timeout)
+                .dns(new CachingDns(Dns.SYSTEM, config.getDnsCacheTtl()))
+                .eventListenerFactory(call -> new AcquireTimingListener(meterRegistry))
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider connectionProvider(RuntimeConfig runtimeConfig) {
+        HttpConfig config = runtimeConfig.getHttp();
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(config.getMaxConnectionsPerHost())
+                .pendingAcquireTimeout(config.getPendingAcquireTimeout())
+                .maxIdleTime(config.getKeepAlive())
+                .maxLifeTime(config.getMaxLifeTime())
+                .evictInBackground(config.getKeepAlive())
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * 基于共享连接池的 Reactor Netty 客户端
+     * 不强制 TLS：https 地址使用默认的 TLS 配置并经 ALPN 协商 HTTP/2，http 地址（本地 OpenAI 兼容服务、代理等）使用明文 HTTP/1.1
+     */
+    @Bean
+    public HttpClient reactorHttpClient(ConnectionProvider connectionProvider, RuntimeConfig runtimeConfig) {
+        HttpConfig config = runtimeConfig.getHttp();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) config.getConnectTimeout().toMillis())
+                .resolver(spec -> spec.cacheMaxTimeToLive(config.getDnsCacheTtl()))
+                // 请求路径不作为指标标签，避免基数膨胀
+                .metrics(true, uri -> "/");
+        if (config.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        log.info("Shared HTTP transport: http2={}, maxConnectionsPerHost={}, keepAlive={}",
+                config.isHttp2(), config.getMaxConnectionsPerHost(), config.getKeepAlive());
+        return httpClient;
+    }
+
+    /**
+     * WebClient.Builder 使用共享的 Reactor Netty 连接池
+     */
+    @Bean
+    public WebClientCustomizer sharedTransportWebClientCustomizer(HttpClient reactorHttpClient) {
+        ReactorClientHttpConnector connector = new ReactorClientHttpConnector(reactorHttpClient);
+        return builder -> builder.clientConnector(connector);
+    }
+
+    /**
+     * 智谱等基于 Spring AI RestClient 的调用同样使用共享的 Reactor Netty 连接池；
+     * 等待响应头和读取响应体的超时都取模型调用超时（请求工厂默认分别为 5s 和 10s）
+     */
+    @Bean
+    public RestClientCustomizer sharedTransportRestClientCustomizer(HttpClient reactorHttpClient,
+                                                                    ProvidersConfig providersConfig) {
+        Duration timeout = providersConfig.getHttp().getTimeout();
+        ReactorNettyClientRequestFactory requestFactory = new ReactorNettyClientRequestFactory(reactorHttpClient);
+        requestFactory.setExchangeTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        return builder -> builder.requestFactory(requestFactory);
+    }
+
+    /**
+     * 记录从调用开始到拿到连接的耗时，按是否新建连接区分
+     */
+    private static class AcquireTimingListener extends EventListener {
+        private final MeterRegistry meterRegistry;
+        private long callStart;
+        private boolean connected;
+
+        AcquireTimingListener(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connected = true;
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            Timer.builder("nanobot.http.connection.acquire")
+                    .description("Time to obtain an HTTP connection from the pool or by connecting")
+                    .tags("client", "okhttp", "connection", connected ? "new" : "reused",
+                            "host", call.request().url().host())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - callStart, TimeUnit.NANOSECONDS);
+        }
+    }
+}
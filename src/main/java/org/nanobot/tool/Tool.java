@@ -32,6 +32,14 @@ public interface Tool {
      */
     Mono<ToolResult> execute(ToolCall call);
 
+    /**
+     * 是否有副作用（写文件、执行命令、发送消息等）
+     * 无副作用的工具调用结果可安全缓存或复用
+     */
+    default boolean hasSideEffects() {
+        return true;
+    }
+
     /**
      * 是否启用
      */
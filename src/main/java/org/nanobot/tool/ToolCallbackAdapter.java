@@ -8,13 +8,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.nanobot.model.ToolCall;
 import org.nanobot.model.ToolResult;
 import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
 import org.springframework.ai.tool.function.FunctionToolCallback;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -30,6 +33,12 @@ public class ToolCallbackAdapter {
     private final ToolRegistry toolRegistry;
     private final ObjectMapper objectMapper;
 
+    /**
+     * 仅含定义的回调缓存 (工具名 → 回调)，工具集版本变化时清空
+     */
+    private final Map<String, ToolCallback> definitionCache = new ConcurrentHashMap<>();
+    private volatile long cachedVersion = -1;
+
     /**
      * 将自定义 Tool 转换为 Spring AI ToolCallback
      * 使用 FunctionToolCallback 包装自定义工具
@@ -59,6 +68,7 @@ public class ToolCallbackAdapter {
                     .build();
 
             // 执行工具（同步等待结果）
+            // 该回调由模型调用在 llm 调度器线程上触发，工具自身切换到 tool 调度器执行，此处阻塞等待不占用非阻塞线程
             try {
                 ToolResult result = tool.execute(toolCall).block();
                 if (result != null && result.isSuccess()) {
@@ -79,6 +89,29 @@ public class ToolCallbackAdapter {
                 .build();
     }
 
+    /**
+     * 获取只含工具定义、不执行工具的回调（透传模式）
+     * 模型返回的工具调用原样交给 AgentLoop 执行；定义使用工具声明的 JSON Schema，按工具集版本缓存
+     *
+     * @param tools 工具列表
+     * @return ToolCallback 数组
+     */
+    public ToolCallback[] definitionCallbacks(List<Tool> tools) {
+        long version = toolRegistry.getVersion();
+        if (version != cachedVersion) {
+            definitionCache.clear();
+            cachedVersion = version;
+        }
+        return tools.stream()
+                .map(tool -> definitionCache.computeIfAbsent(tool.getName(), name -> new DefinitionOnlyCallback(
+                        ToolDefinition.builder()
+                                .name(tool.getName())
+                                .description(tool.getDescription())
+                                .inputSchema(tool.getParameterSchema())
+                                .build())))
+                .toArray(ToolCallback[]::new);
+    }
+
     /**
      * 将所有工具转换为 ToolCallback 列表
      *
@@ -90,6 +123,23 @@ public class ToolCallbackAdapter {
                 .toArray(ToolCallback[]::new);
     }
 
+    /**
+     * 只提供定义的回调，不应被 Spring AI 调用
+     */
+    private record DefinitionOnlyCallback(ToolDefinition toolDefinition) implements ToolCallback {
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return toolDefinition;
+        }
+
+        @Override
+        public String call(String toolInput) {
+            throw new UnsupportedOperationException(
+                    "Tool " + toolDefinition.name() + " is executed by AgentLoop, not by the model client");
+        }
+    }
+
     /**
      * 将 Spring AI 的输入对象转换为 JSON 字符串
      *
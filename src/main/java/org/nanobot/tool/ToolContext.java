@@ -0,0 +1,76 @@
+package org.nanobot.tool;
+
+import org.nanobot.model.Message;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 工具执行上下文
+ * 通过 Reactor Context 向工具传递当前轮次的消息、所属 Agent 的工作区，以及同一轮次内各次工具调用共享的状态
+ */
+public final class ToolContext {
+
+    private static final String WORKSPACE = "nanobot.tool.workspace";
+    private static final String MESSAGE = "nanobot.tool.message";
+    private static final String TURN_STATE = "nanobot.tool.turn-state";
+
+    private ToolContext() {
+    }
+
+    /**
+     * 构建工具执行上下文
+     *
+     * @param message   当前轮次处理的消息
+     * @param workspace 工作区路径
+     * @return Context
+     */
+    public static Context of(Message message, String workspace) {
+        Context context = Context.of(TURN_STATE, new ConcurrentHashMap<String, Object>());
+        if (message != null) {
+            context = context.put(MESSAGE, message);
+        }
+        if (workspace != null) {
+            context = context.put(WORKSPACE, workspace);
+        }
+        return context;
+    }
+
+    /**
+     * 读取当前工作区，未设置时返回默认值
+     *
+     * @param context  Reactor Context
+     * @param fallback 默认工作区
+     * @return String 工作区路径
+     */
+    public static String workspace(ContextView context, String fallback) {
+        return context.getOrDefault(WORKSPACE, fallback);
+    }
+
+    /**
+     * 读取当前轮次处理的消息
+     *
+     * @param context Reactor Context
+     * @return Message 未设置时返回 null
+     */
+    public static Message message(ContextView context) {
+        return context.getOrDefault(MESSAGE, null);
+    }
+
+    /**
+     * 读取同一轮次内共享的状态，首次读取时创建；不在轮次内执行时每次都返回新建的值
+     *
+     * @param context Reactor Context
+     * @param key     状态键
+     * @param initial 初始值
+     * @return T 当前轮次的状态
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T turnScoped(ContextView context, String key, Supplier<T> initial) {
+        Map<String, Object> state = context.getOrDefault(TURN_STATE, null);
+        return state != null ? (T) state.computeIfAbsent(key, k -> initial.get()) : initial.get();
+    }
+}
@@ -19,6 +19,7 @@ import java.util.List;
 public class ToolExecutor {
 
     private final ToolRegistry registry;
+    private final ToolResultProcessor resultProcessor;
 
     /**
      * 执行工具
@@ -52,7 +53,8 @@ public class ToolExecutor {
                     .onErrorResume(e -> {
                         log.error("Tool {} execution error", call.getFunctionName(), e);
                         return Mono.just(ToolResult.error(call.getId(), e));
-                    });
+                    })
+                    .flatMap(result -> resultProcessor.process(call, result));
         });
     }
 
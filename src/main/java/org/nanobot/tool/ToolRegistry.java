@@ -6,6 +6,7 @@ import org.springframework.stereotype.Component;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 工具注册表
@@ -16,6 +17,11 @@ public class ToolRegistry {
 
     private final Map<String, Tool> tools = new ConcurrentHashMap<>();
 
+    /**
+     * 工具集版本号，每次注册变更时递增
+     */
+    private final AtomicLong version = new AtomicLong();
+
     public ToolRegistry(List<Tool> toolBeans) {
         // 自动注册所有 Tool Bean
         for (Tool tool : toolBeans) {
@@ -32,6 +38,7 @@ public class ToolRegistry {
     public void register(Tool tool) {
         if (tool.isEnabled()) {
             tools.put(tool.getName(), tool);
+            version.incrementAndGet();
             log.debug("Registered tool: {}", tool.getName());
         }
     }
@@ -56,4 +63,11 @@ public class ToolRegistry {
     public boolean hasTool(String name) {
         return tools.containsKey(name);
     }
+
+    /**
+     * 获取工具集版本号
+     */
+    public long getVersion() {
+        return version.get();
+    }
 }
@@ -0,0 +1,280 @@
+package org.nanobot.tool;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.config.ToolsConfig;
+import org.nanobot.config.ToolsConfig.OutputConfig;
+import org.nanobot.model.ToolCall;
+import org.nanobot.model.ToolResult;
+import org.nanobot.runtime.BlockingSchedulers;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * 工具结果后处理
+ * 超长输出只保留开头和结尾放入上下文，中间部分以统计信息代替；
+ * 完整内容按内容摘要保存到工作区，模型可通过 read_file 的 offset/limit 参数分页读取。
+ * 保存时超长行按固定字符数折行，保证单行 JSON 等内容也能逐页读取；保存目录按保留时长和总大小清理
+ */
+@Slf4j
+@Component
+public class ToolResultProcessor {
+
+    private static final String READ_FILE = "read_file";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * 保存完整输出时的最大行长
+     */
+    private static final int SPILL_LINE_CHARS = 2000;
+
+    private final ToolsConfig toolsConfig;
+    private final OutputConfig config;
+    private final BlockingSchedulers blockingSchedulers;
+    private final MeterRegistry meterRegistry;
+
+    public ToolResultProcessor(ToolsConfig toolsConfig,
+                               BlockingSchedulers blockingSchedulers,
+                               MeterRegistry meterRegistry) {
+        this.toolsConfig = toolsConfig;
+        this.config = toolsConfig.getOutput();
+        this.blockingSchedulers = blockingSchedulers;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 处理工具结果，未超长的结果原样返回
+     *
+     * @param call   工具调用
+     * @param result 工具结果
+     * @return Mono<ToolResult> 处理后的结果
+     */
+    public Mono<ToolResult> process(ToolCall call, ToolResult result) {
+        String content = result.isSuccess() ? result.getContent() : result.getError();
+        int limit = config.limitFor(call.getFunctionName());
+        if (!config.isEnabled() || content == null || content.length() <= limit || isPagedRead(call)) {
+            return Mono.just(result);
+        }
+
+        return Mono.deferContextual(ctx -> {
+            String workspace = ToolContext.workspace(ctx, toolsConfig.getWorkspace());
+            return Mono.fromCallable(() -> spill(workspace, content))
+                    .subscribeOn(blockingSchedulers.disk());
+        })
+                .map(spillPath -> truncate(content, limit, spillPath))
+                .onErrorResume(e -> {
+                    log.warn("Failed to spill output of {}", call.getFunctionName(), e);
+                    return Mono.just(truncate(content, limit, null));
+                })
+                .map(truncated -> {
+                    meterRegistry.counter("nanobot.tool.output.truncated", "tool", call.getFunctionName()).increment();
+                    meterRegistry.counter("nanobot.tool.output.chars_saved").increment(content.length() - truncated.length());
+                    log.info("Truncated output of {} from {} to {} chars",
+                            call.getFunctionName(), content.length(), truncated.length());
+                    return ToolResult.builder()
+                            .toolCallId(result.getToolCallId())
+                            .success(result.isSuccess())
+                            .content(result.isSuccess() ? truncated : null)
+                            .error(result.isSuccess() ? null : truncated)
+                            .build();
+                });
+    }
+
+    /**
+     * 指定了 offset/limit 的 read_file 已按字符上限分页，不再截断，
+     * 否则读取溢出文件的一页会再次被截断和保存
+     */
+    private boolean isPagedRead(ToolCall call) {
+        return READ_FILE.equals(call.getFunctionName())
+                && (call.getArgument("offset") != null || call.getArgument("limit") != null);
+    }
+
+    /**
+     * 按内容摘要保存完整输出（超长行折行），相同内容只写一次；写入后清理过期和超出总大小的文件
+     *
+     * @return String 相对工作区的路径
+     */
+    private String spill(String workspace, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String name = DigestUtils.md5DigestAsHex(bytes) + ".txt";
+        Path dir = Paths.get(workspace).resolve(config.getSpillDir());
+        Path target = dir.resolve(name);
+
+        if (!Files.exists(target)) {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, name, TEMP_SUFFIX);
+            Files.writeString(tmp, wrapLongLines(content), StandardCharsets.UTF_8);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            prune(dir, target);
+        } else {
+            // 重复出现的输出刷新修改时间，避免仍在引用的文件先被清理
+            Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        return config.getSpillDir() + "/" + name;
+    }
+
+    /**
+     * 超过 SPILL_LINE_CHARS 的行按固定长度折行，不拆开代理对
+     */
+    private static String wrapLongLines(String content) {
+        if (!hasLongLines(content)) {
+            return content;
+        }
+        StringBuilder sb = new StringBuilder(content.length() + content.length() / SPILL_LINE_CHARS + 1);
+        int lineStart = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                lineStart = i + 1;
+            } else if (i - lineStart >= SPILL_LINE_CHARS && !Character.isLowSurrogate(c)) {
+                sb.append('\n');
+                lineStart = i;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static boolean hasLongLines(String content) {
+        int lineStart = 0;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                lineStart = i + 1;
+            } else if (i - lineStart >= SPILL_LINE_CHARS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 删除超过保留时长的文件，总大小仍超出上限时从最早的文件开始删除。
+     * 其他调用正在写入的临时文件不计入总大小，只在超过保留时长（写入中断遗留）时删除
+     */
+    private void prune(Path dir, Path keep) {
+        long cutoff = System.currentTimeMillis() - config.getSpillRetention().toMillis();
+        long maxBytes = config.getSpillMaxMb() * 1024L * 1024L;
+        List<SpillFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(dir)) {
+            paths.filter(path -> !path.equals(keep)).forEach(path -> {
+                try {
+                    long modified = Files.getLastModifiedTime(path).toMillis();
+                    if (!path.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                        files.add(new SpillFile(path, modified, Files.size(path)));
+                    } else if (modified < cutoff) {
+                        Files.deleteIfExists(path);
+                    }
+                } catch (IOException e) {
+                    log.debug("Failed to stat spill file {}", path, e);
+                }
+            });
+            long total = Files.size(keep);
+            for (SpillFile file : files) {
+                total += file.size();
+            }
+
+            files.sort(Comparator.comparingLong(SpillFile::modified));
+            int deleted = 0;
+            for (SpillFile file : files) {
+                if (file.modified() >= cutoff && total <= maxBytes) {
+                    break;
+                }
+                if (Files.deleteIfExists(file.path())) {
+                    deleted++;
+                }
+                total -= file.size();
+            }
+            if (deleted > 0) {
+                log.debug("Pruned {} files from {}", deleted, dir);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to prune spill directory {}", dir, e);
+        }
+    }
+
+    /**
+     * 保留开头和结尾（按行切分），中间部分以统计信息代替
+     */
+    private String truncate(String content, int limit, String spillPath) {
+        int headChars = (int) (limit * config.getHeadRatio());
+        int tailChars = limit - headChars;
+
+        // 尽量在换行处切分，换行过远时按字符切分
+        int headEnd = content.lastIndexOf('\n', headChars);
+        headEnd = headEnd >= headChars / 2 ? headEnd + 1 : headChars;
+        int tailStart = content.indexOf('\n', content.length() - tailChars);
+        tailStart = tailStart >= 0 && tailStart < content.length() - tailChars / 2
+                ? tailStart + 1
+                : content.length() - tailChars;
+        tailStart = Math.max(tailStart, headEnd);
+
+        String middle = content.substring(headEnd, tailStart);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("[输出过长：共 %d 字符、%d 行，已截断。", content.length(), countLines(content)));
+        if (spillPath != null) {
+            sb.append("完整内容已保存到 ").append(spillPath)
+                    .append("，可使用 read_file 的 offset/limit 参数按行分页读取");
+            if (hasLongLines(content)) {
+                sb.append("（超过 ").append(SPILL_LINE_CHARS).append(" 字符的行已折行）");
+            }
+        }
+        sb.append("]\n");
+        sb.append(content, 0, headEnd);
+        sb.append("\n... 省略中间 ").append(countLines(middle)).append(" 行（").append(middle.length()).append(" 字符）");
+        sb.append(summarize(middle));
+        sb.append(" ...\n");
+        sb.append(content, tailStart, content.length());
+        return sb.toString();
+    }
+
+    /**
+     * 中间部分摘要：错误、警告行数
+     */
+    private String summarize(String middle) {
+        int errors = 0;
+        int warnings = 0;
+        for (String line : middle.split("\n")) {
+            String upper = line.toUpperCase(Locale.ROOT);
+            if (upper.contains("ERROR") || upper.contains("EXCEPTION") || line.contains("错误")) {
+                errors++;
+            } else if (upper.contains("WARN") || line.contains("警告")) {
+                warnings++;
+            }
+        }
+        if (errors == 0 && warnings == 0) {
+            return "";
+        }
+        return String.format("，其中含 %d 行错误、%d 行警告", errors, warnings);
+    }
+
+    private record SpillFile(Path path, long modified, long size) {
+    }
+
+    private int countLines(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        int lines = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+}
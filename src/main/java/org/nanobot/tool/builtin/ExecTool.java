@@ -4,7 +4,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.nanobot.config.ToolsConfig;
 import org.nanobot.model.ToolCall;
 import org.nanobot.model.ToolResult;
+import org.nanobot.runtime.BlockingSchedulers;
 import org.nanobot.tool.Tool;
+import org.nanobot.tool.ToolContext;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
@@ -23,9 +25,11 @@ import java.util.concurrent.TimeoutException;
 public class ExecTool implements Tool {
 
     private final ToolsConfig toolsConfig;
+    private final BlockingSchedulers blockingSchedulers;
 
-    public ExecTool(ToolsConfig toolsConfig) {
+    public ExecTool(ToolsConfig toolsConfig, BlockingSchedulers blockingSchedulers) {
         this.toolsConfig = toolsConfig;
+        this.blockingSchedulers = blockingSchedulers;
     }
 
     @Override
@@ -56,55 +60,59 @@ public class ExecTool implements Tool {
 
     @Override
     public Mono<ToolResult> execute(ToolCall call) {
-        return Mono.fromCallable(() -> {
-            String command = call.getArgument("command");
-
-            log.info("Executing command: {}", command);
-
-            // 安全检查
-            validateCommand(command);
-
-            // 执行命令
-            ProcessBuilder pb;
-            if (isWindows()) {
-                pb = new ProcessBuilder("cmd", "/c", command);
-            } else {
-                pb = new ProcessBuilder("bash", "-c", command);
-            }
+        return Mono.deferContextual(ctx -> {
+            String workspace = ToolContext.workspace(ctx, toolsConfig.getWorkspace());
+            return Mono.fromCallable(() -> {
+                String command = call.getArgument("command");
+
+                log.info("Executing command: {}", command);
+
+                // 安全检查
+                validateCommand(command);
+
+                // 执行命令
+                ProcessBuilder pb;
+                if (isWindows()) {
+                    pb = new ProcessBuilder("cmd", "/c", command);
+                } else {
+                    pb = new ProcessBuilder("bash", "-c", command);
+                }
 
-            // 设置工作目录
-            File workDir = new File(toolsConfig.getWorkspace());
-            if (workDir.exists()) {
-                pb.directory(workDir);
-            }
+                // 设置工作目录
+                File workDir = new File(workspace);
+                if (workDir.exists()) {
+                    pb.directory(workDir);
+                }
 
-            Process process = pb.start();
+                Process process = pb.start();
 
-            // 超时控制
-            boolean finished = process.waitFor(toolsConfig.getShell().getTimeout(),
-                    java.util.concurrent.TimeUnit.SECONDS);
+                // 超时控制
+                boolean finished = process.waitFor(toolsConfig.getShell().getTimeout(),
+                        java.util.concurrent.TimeUnit.SECONDS);
 
-            if (!finished) {
-                process.destroyForcibly();
-                throw new TimeoutException("命令执行超时");
-            }
+                if (!finished) {
+                    process.destroyForcibly();
+                    throw new TimeoutException("命令执行超时");
+                }
 
-            // 读取输出
-            String output;
-            if (process.exitValue() == 0) {
-                output = new String(
-                        process.getInputStream().readAllBytes(),
-                        StandardCharsets.UTF_8
-                );
-            } else {
-                output = new String(
-                        process.getErrorStream().readAllBytes(),
-                        StandardCharsets.UTF_8
-                );
-            }
+                // 读取输出
+                String output;
+                if (process.exitValue() == 0) {
+                    output = new String(
+                            process.getInputStream().readAllBytes(),
+                            StandardCharsets.UTF_8
+                    );
+                } else {
+                    output = new String(
+                            process.getErrorStream().readAllBytes(),
+                            StandardCharsets.UTF_8
+                    );
+                }
 
-            return ToolResult.success(call.getId(),
-                    String.format("退出码: %d\n输出:\n%s", process.exitValue(), output));
+                return ToolResult.success(call.getId(),
+                        String.format("退出码: %d\n输出:\n%s", process.exitValue(), output));
+            })
+                    .subscribeOn(blockingSchedulers.tool());
         })
                 .onErrorResume(e -> Mono.just(ToolResult.error(call.getId(), e)));
     }
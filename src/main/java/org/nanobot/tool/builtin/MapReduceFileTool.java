@@ -0,0 +1,324 @@
+package org.nanobot.tool.builtin;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.agent.AgentRouter;
+import org.nanobot.config.AgentConfig.DefaultAgentConfig;
+import org.nanobot.config.ToolsConfig;
+import org.nanobot.config.ToolsConfig.MapReduceConfig;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.model.Message;
+import org.nanobot.model.ToolCall;
+import org.nanobot.model.ToolResult;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ModelOptions;
+import org.nanobot.runtime.BlockingSchedulers;
+import org.nanobot.tool.Tool;
+import org.nanobot.tool.ToolContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 大文件 Map-Reduce 问答工具
+ * 按行边界将文件切分为小段（内存映射流式读取，不整体载入内存），各段并行调用模型提取局部回答，
+ * 再按固定扇入逐层合并为最终回答，整体耗时接近 O(log n) 次模型调用。
+ * 分段数超过上限时按文件大小放大每段字节数，直到达到每段字节数上限
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "nanobot.tools.map-reduce.enabled", havingValue = "true", matchIfMissing = true)
+public class MapReduceFileTool implements Tool {
+
+    /**
+     * 分段与问题无关时模型的回复
+     */
+    private static final String NONE = "NONE";
+
+    /**
+     * 每次映射的文件窗口大小
+     */
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final ToolsConfig toolsConfig;
+    private final MapReduceConfig config;
+    private final ObjectProvider<ChatProvider> chatProvider;
+    private final AgentRouter agentRouter;
+    private final BlockingSchedulers blockingSchedulers;
+    private final MeterRegistry meterRegistry;
+
+    public MapReduceFileTool(ToolsConfig toolsConfig,
+                             ObjectProvider<ChatProvider> chatProvider,
+                             AgentRouter agentRouter,
+                             BlockingSchedulers blockingSchedulers,
+                             MeterRegistry meterRegistry) {
+        this.toolsConfig = toolsConfig;
+        this.config = toolsConfig.getMapReduce();
+        this.chatProvider = chatProvider;
+        this.agentRouter = agentRouter;
+        this.blockingSchedulers = blockingSchedulers;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return "map_reduce_file";
+    }
+
+    @Override
+    public String getDescription() {
+        return "针对大文件（如日志）回答问题：分段并行分析后汇总，不会把整个文件放入上下文。"
+                + "参数: path (文件路径), question (要回答的问题)";
+    }
+
+    @Override
+    public String getParameterSchema() {
+        return """
+                {
+                    "type": "object",
+                    "properties": {
+                        "path": {
+                            "type": "string",
+                            "description": "文件路径"
+                        },
+                        "question": {
+                            "type": "string",
+                            "description": "针对文件内容的问题"
+                        }
+                    },
+                    "required": ["path", "question"]
+                }
+                """;
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return false;
+    }
+
+    @Override
+    public Mono<ToolResult> execute(ToolCall call) {
+        return Mono.deferContextual(ctx -> {
+            String workspace = ToolContext.workspace(ctx, toolsConfig.getWorkspace());
+            String path = call.getArgument("path");
+            String question = call.getArgument("question");
+            if (question == null || question.isBlank()) {
+                throw new IllegalArgumentException("question must not be empty");
+            }
+
+            if (toolsConfig.isRestrictToWorkspace()) {
+                validatePath(workspace, path);
+            }
+            File file = resolveFile(workspace, path);
+            if (!file.isFile()) {
+                throw new IllegalArgumentException("File not found: " + path);
+            }
+
+            int chunkBytes = chunkBytes(file.length());
+            long chunks = (file.length() + chunkBytes - 1) / chunkBytes;
+            if (chunks > config.getMaxChunks()) {
+                throw new IllegalArgumentException(String.format(
+                        "File too large: ~%d chunks of %d bytes (max %d)", chunks, chunkBytes, config.getMaxChunks()));
+            }
+
+            ModelOptions options = modelOptions(ToolContext.message(ctx));
+            log.info("Map-reduce over {} ({} bytes, ~{} chunks of {} bytes)", path, file.length(), chunks, chunkBytes);
+
+            return readChunks(file, chunkBytes)
+                    .index()
+                    .flatMapSequential(chunk -> map(path, question, chunk.getT1() + 1, chunks, chunk.getT2(), options),
+                            config.getMaxConcurrency())
+                    .filter(partial -> !partial.isBlank() && !NONE.equalsIgnoreCase(partial.trim()))
+                    .collectList()
+                    .flatMap(partials -> {
+                        meterRegistry.counter("nanobot.tool.mapreduce.chunks").increment(chunks);
+                        if (partials.isEmpty()) {
+                            return Mono.just(ToolResult.success(call.getId(), "文件中未找到与问题相关的内容"));
+                        }
+                        log.debug("{} of ~{} chunks relevant, reducing", partials.size(), chunks);
+                        return reduce(question, partials, options)
+                                .map(answer -> ToolResult.success(call.getId(), String.format(
+                                        "基于 %d 个分段中 %d 个相关分段的汇总:\n%s", chunks, partials.size(), answer)));
+                    });
+        })
+                .onErrorResume(e -> Mono.just(ToolResult.error(call.getId(), e)));
+    }
+
+    /**
+     * 每段字节数：默认 chunkBytes，分段数超过 maxChunks 时按文件大小放大，不超过 maxChunkBytes
+     */
+    private int chunkBytes(long fileSize) {
+        long required = (fileSize + config.getMaxChunks() - 1) / config.getMaxChunks();
+        long limit = Math.max(config.getChunkBytes(), config.getMaxChunkBytes());
+        return (int) Math.min(Math.max(config.getChunkBytes(), required), limit);
+    }
+
+    /**
+     * 流式读取文件分段
+     */
+    private Flux<String> readChunks(File file, int chunkBytes) {
+        return Flux.<String, ChunkReader>generate(
+                        () -> new ChunkReader(file.toPath(), chunkBytes),
+                        (reader, sink) -> {
+                            try {
+                                String chunk = reader.next();
+                                if (chunk == null) {
+                                    sink.complete();
+                                } else {
+                                    sink.next(chunk);
+                                }
+                            } catch (IOException e) {
+                                sink.error(e);
+                            }
+                            return reader;
+                        },
+                        ChunkReader::close)
+                .subscribeOn(blockingSchedulers.tool());
+    }
+
+    /**
+     * Map：单个分段提取局部回答
+     */
+    private Mono<String> map(String path, String question, long index, long total, String chunk, ModelOptions options) {
+        String prompt = String.format("以下是文件 %s 的第 %d 段内容（共约 %d 段）。请仅根据这段内容回答问题，保留关键数据、行内容或时间等定位信息。"
+                + "如果这段内容与问题无关，只回复 %s。\n\n问题: %s\n\n内容:\n%s", path, index, total, NONE, question, chunk);
+        return chat(prompt, options);
+    }
+
+    /**
+     * Reduce：按扇入逐层合并局部回答，直到只剩一个
+     */
+    private Mono<String> reduce(String question, List<String> partials, ModelOptions options) {
+        if (partials.size() == 1) {
+            return Mono.just(partials.get(0));
+        }
+        return Flux.fromIterable(partials)
+                .buffer(Math.max(2, config.getReduceFanIn()))
+                .flatMapSequential(batch -> batch.size() == 1
+                        ? Mono.just(batch.get(0))
+                        : combine(question, batch, options), config.getMaxConcurrency())
+                .collectList()
+                .flatMap(next -> reduce(question, next, options));
+    }
+
+    private Mono<String> combine(String question, List<String> batch, ModelOptions options) {
+        StringBuilder prompt = new StringBuilder("以下是针对同一问题、来自文件不同部分的局部回答。"
+                + "请合并为一个完整、去重的回答，保留关键数据和定位信息。\n\n问题: ")
+                .append(question).append("\n\n局部回答:\n");
+        for (int i = 0; i < batch.size(); i++) {
+            prompt.append('[').append(i + 1).append("] ").append(batch.get(i)).append("\n\n");
+        }
+        return chat(prompt.toString(), options);
+    }
+
+    private Mono<String> chat(String prompt, ModelOptions options) {
+        return chatProvider.getObject()
+                .chat(List.of(ChatMessage.user(prompt)), List.of(), options)
+                .map(response -> response.getContent() == null ? "" : response.getContent());
+    }
+
+    /**
+     * 分段调用的模型参数：优先使用工具配置的模型，否则使用当前 Agent 的模型
+     */
+    private ModelOptions modelOptions(Message message) {
+        DefaultAgentConfig agent = message != null ? agentRouter.agentFor(message) : null;
+        String model = config.getModel() != null && !config.getModel().isBlank()
+                ? config.getModel()
+                : agent != null ? agent.getModel() : null;
+        return ModelOptions.of(model, 0.0);
+    }
+
+    /**
+     * 验证路径是否在工作区内
+     */
+    private void validatePath(String workspacePath, String userPath) {
+        Path workspace = Paths.get(workspacePath).toAbsolutePath().normalize();
+        Path target = workspace.resolve(userPath).toAbsolutePath().normalize();
+
+        if (!target.startsWith(workspace)) {
+            throw new SecurityException("路径超出工作区范围: " + userPath);
+        }
+    }
+
+    /**
+     * 解析文件路径
+     */
+    private File resolveFile(String workspacePath, String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(workspacePath, path);
+    }
+
+    /**
+     * 基于内存映射的分段读取器
+     * 按窗口映射文件，分段尽量在换行处切分，无换行时退到 UTF-8 字符边界
+     */
+    private static class ChunkReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final long size;
+        private final int chunkBytes;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+
+        ChunkReader(Path path, int chunkBytes) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.size = channel.size();
+            this.chunkBytes = chunkBytes;
+        }
+
+        String next() throws IOException {
+            if (position >= size) {
+                return null;
+            }
+            long end = Math.min(position + chunkBytes, size);
+            // 窗口需多覆盖一个字节，用于判断切分点是否落在多字节字符中间
+            if (window == null || Math.min(end + 1, size) > windowStart + window.capacity()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                        Math.min(WINDOW_BYTES, size - windowStart));
+            }
+
+            int from = (int) (position - windowStart);
+            int to = (int) (end - windowStart);
+            if (end < size) {
+                int cut = to;
+                while (cut > from && window.get(cut - 1) != '\n') {
+                    cut--;
+                }
+                if (cut == from) {
+                    cut = to;
+                    while (cut > from && (window.get(cut) & 0xC0) == 0x80) {
+                        cut--;
+                    }
+                }
+                to = cut;
+            }
+
+            byte[] bytes = new byte[to - from];
+            window.get(from, bytes);
+            position = windowStart + to;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close {}", channel, e);
+            }
+        }
+    }
+}
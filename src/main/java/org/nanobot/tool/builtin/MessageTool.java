@@ -52,7 +52,7 @@ public class MessageTool implements Tool {
 
     @Override
     public Mono<ToolResult> execute(ToolCall call) {
-        return Mono.fromCallable(() -> {
+        return Mono.defer(() -> {
             String channelId = call.getArgument("channelId");
             String content = call.getArgument("content");
 
@@ -66,9 +66,9 @@ public class MessageTool implements Tool {
                     .timestamp(java.time.Instant.now())
                     .build();
 
-            messageBus.publishOutbound(message).subscribe();
-
-            return ToolResult.success(call.getId(), "消息已发送");
+            // 发送纳入工具调用流程，轮次结束前消息已交给总线
+            return messageBus.publishOutbound(message)
+                    .thenReturn(ToolResult.success(call.getId(), "消息已发送"));
         })
                 .onErrorResume(e -> Mono.just(ToolResult.error(call.getId(), e)));
     }
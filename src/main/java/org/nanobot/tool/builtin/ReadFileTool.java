@@ -4,12 +4,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.nanobot.config.ToolsConfig;
 import org.nanobot.model.ToolCall;
 import org.nanobot.model.ToolResult;
+import org.nanobot.runtime.BlockingSchedulers;
 import org.nanobot.tool.Tool;
+import org.nanobot.tool.ToolContext;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -23,10 +27,17 @@ import java.nio.file.Paths;
 @ConditionalOnProperty(name = "nanobot.tools.file.enabled", havingValue = "true", matchIfMissing = true)
 public class ReadFileTool implements Tool {
 
+    /**
+     * 只指定 offset 时默认读取的行数
+     */
+    private static final int DEFAULT_PAGE_LINES = 200;
+
     private final ToolsConfig toolsConfig;
+    private final BlockingSchedulers blockingSchedulers;
 
-    public ReadFileTool(ToolsConfig toolsConfig) {
+    public ReadFileTool(ToolsConfig toolsConfig, BlockingSchedulers blockingSchedulers) {
         this.toolsConfig = toolsConfig;
+        this.blockingSchedulers = blockingSchedulers;
     }
 
     @Override
@@ -36,7 +47,7 @@ public class ReadFileTool implements Tool {
 
     @Override
     public String getDescription() {
-        return "读取文件内容。参数: path (文件路径)";
+        return "读取文件内容。参数: path (文件路径), offset (可选，起始行号，从 1 开始), limit (可选，读取行数)";
     }
 
     @Override
@@ -48,6 +59,14 @@ public class ReadFileTool implements Tool {
                         "path": {
                             "type": "string",
                             "description": "文件路径"
+                        },
+                        "offset": {
+                            "type": "integer",
+                            "description": "起始行号，从 1 开始"
+                        },
+                        "limit": {
+                            "type": "integer",
+                            "description": "读取行数"
                         }
                     },
                     "required": ["path"]
@@ -55,38 +74,108 @@ public class ReadFileTool implements Tool {
                 """;
     }
 
+    @Override
+    public boolean hasSideEffects() {
+        return false;
+    }
+
     @Override
     public Mono<ToolResult> execute(ToolCall call) {
-        return Mono.fromCallable(() -> {
-            String path = call.getArgument("path");
-            log.info("Reading file: {}", path);
+        return Mono.deferContextual(ctx -> {
+            String workspace = ToolContext.workspace(ctx, toolsConfig.getWorkspace());
+            return Mono.fromCallable(() -> {
+                String path = call.getArgument("path");
+                log.info("Reading file: {}", path);
+
+                // 工作区限制检查
+                if (toolsConfig.isRestrictToWorkspace()) {
+                    validatePath(workspace, path);
+                }
 
-            // 工作区限制检查
-            if (toolsConfig.isRestrictToWorkspace()) {
-                validatePath(path);
-            }
+                File file = resolveFile(workspace, path);
+                if (!file.exists()) {
+                    throw new IllegalArgumentException("File not found: " + path);
+                }
 
-            File file = resolveFile(path);
-            if (!file.exists()) {
-                throw new IllegalArgumentException("File not found: " + path);
-            }
+                if (!file.isFile()) {
+                    throw new IllegalArgumentException("Not a file: " + path);
+                }
 
-            if (!file.isFile()) {
-                throw new IllegalArgumentException("Not a file: " + path);
-            }
+                // 指定 offset/limit 时按行分页读取，不载入整个文件
+                String offset = call.getArgument("offset");
+                String limit = call.getArgument("limit");
+                if (offset != null || limit != null) {
+                    return ToolResult.success(call.getId(), readLines(file,
+                            offset != null ? Integer.parseInt(offset.trim()) : 1,
+                            limit != null ? Integer.parseInt(limit.trim()) : DEFAULT_PAGE_LINES));
+                }
 
-            String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+                String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
 
-            return ToolResult.success(call.getId(), content);
+                return ToolResult.success(call.getId(), content);
+            })
+                    .subscribeOn(blockingSchedulers.tool());
         })
                 .onErrorResume(e -> Mono.just(ToolResult.error(call.getId(), e)));
     }
 
+    /**
+     * 按行读取文件的一页
+     * 一页的字符数不超过工具输出上限：超出时提前结束本页，单行超出上限时只返回该行开头部分
+     */
+    private String readLines(File file, int offset, int limit) throws IOException {
+        int start = Math.max(offset, 1);
+        int count = Math.max(limit, 1);
+        int maxChars = toolsConfig.getOutput().limitFor(getName());
+
+        StringBuilder page = new StringBuilder();
+        int end = start - 1;
+        int clippedLine = 0;
+        int clippedLength = 0;
+        boolean more = false;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 1; i < start; i++) {
+                if (reader.readLine() == null) {
+                    return String.format("[第 %d 行起无内容，文件已读完]", start);
+                }
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (end - start + 1 >= count || (end >= start && page.length() + 1 + line.length() > maxChars)) {
+                    more = true;
+                    break;
+                }
+                if (end >= start) {
+                    page.append('\n');
+                }
+                if (line.length() > maxChars) {
+                    page.append(line, 0, maxChars);
+                    clippedLine = end + 1;
+                    clippedLength = line.length();
+                } else {
+                    page.append(line);
+                }
+                end++;
+            }
+        }
+
+        if (end < start) {
+            return String.format("[第 %d 行起无内容，文件已读完]", start);
+        }
+
+        page.append(String.format("\n[第 %d-%d 行", start, end));
+        if (clippedLine > 0) {
+            page.append(String.format("，第 %d 行共 %d 字符，仅显示前 %d 字符", clippedLine, clippedLength, maxChars));
+        }
+        page.append(more ? String.format("，后续内容请使用 offset=%d 继续读取]", end + 1) : "，文件已读完]");
+        return page.toString();
+    }
+
     /**
      * 验证路径是否在工作区内
      */
-    private void validatePath(String userPath) {
-        Path workspace = Paths.get(toolsConfig.getWorkspace()).toAbsolutePath().normalize();
+    private void validatePath(String workspacePath, String userPath) {
+        Path workspace = Paths.get(workspacePath).toAbsolutePath().normalize();
         Path target = workspace.resolve(userPath).toAbsolutePath().normalize();
 
         if (!target.startsWith(workspace)) {
@@ -97,8 +186,8 @@ public class ReadFileTool implements Tool {
     /**
      * 解析文件路径
      */
-    private File resolveFile(String path) {
-        File workspace = new File(toolsConfig.getWorkspace());
+    private File resolveFile(String workspacePath, String path) {
+        File workspace = new File(workspacePath);
         File file = new File(path);
         if (file.isAbsolute()) {
             // 绝对路径 (支持 Windows 驱动器路径和 Unix 风格路径)
@@ -0,0 +1,164 @@
+package org.nanobot.tool.builtin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.nanobot.agent.AgentLoop;
+import org.nanobot.agent.AgentPools;
+import org.nanobot.config.ToolsConfig;
+import org.nanobot.config.ToolsConfig.SubagentConfig;
+import org.nanobot.model.Message;
+import org.nanobot.model.ToolCall;
+import org.nanobot.model.ToolResult;
+import org.nanobot.tool.Tool;
+import org.nanobot.tool.ToolContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 子 Agent 并行执行工具
+ * 将可独立完成的子任务分发给多个隔离上下文的 AgentLoop 并行执行，只把精简结果返回父 Agent，
+ * 避免父 Agent 在同一上下文中串行处理并不断累积上下文。
+ * 子 Agent 在全局子 Agent 资源池中执行；token 预算按父 Agent 的轮次计，同一轮次内多次调用共享
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "nanobot.tools.subagents.enabled", havingValue = "true", matchIfMissing = true)
+public class SpawnSubagentsTool implements Tool {
+
+    public static final String NAME = "spawn_subagents";
+
+    /**
+     * 父 Agent 轮次内共享的剩余预算
+     */
+    private static final String TURN_BUDGET = "spawn_subagents.budget";
+
+    private final SubagentConfig config;
+    private final ObjectProvider<AgentLoop> agentLoop;
+    private final AgentPools agentPools;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public SpawnSubagentsTool(ToolsConfig toolsConfig,
+                              ObjectProvider<AgentLoop> agentLoop,
+                              AgentPools agentPools,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry) {
+        this.config = toolsConfig.getSubagents();
+        this.agentLoop = agentLoop;
+        this.agentPools = agentPools;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "将多个相互独立的子任务并行交给子 Agent 执行，返回各子任务的精简结果。"
+                + "适合“分别总结这些文件”之类可拆分的请求。参数: tasks (子任务描述列表，每项需自包含)";
+    }
+
+    @Override
+    public String getParameterSchema() {
+        return """
+                {
+                    "type": "object",
+                    "properties": {
+                        "tasks": {
+                            "type": "array",
+                            "items": {"type": "string"},
+                            "description": "子任务描述列表，每项需包含完成任务所需的全部信息"
+                        }
+                    },
+                    "required": ["tasks"]
+                }
+                """;
+    }
+
+    @Override
+    public Mono<ToolResult> execute(ToolCall call) {
+        return Mono.deferContextual(ctx -> {
+            Message parent = ToolContext.message(ctx);
+            if (parent == null) {
+                throw new IllegalStateException(NAME + " can only be used inside an agent turn");
+            }
+
+            List<String> tasks = parseTasks(call.getArguments());
+            if (tasks.isEmpty()) {
+                throw new IllegalArgumentException("tasks must not be empty");
+            }
+            if (tasks.size() > config.getMaxTasks()) {
+                throw new IllegalArgumentException("Too many tasks: " + tasks.size() + " (max " + config.getMaxTasks() + ")");
+            }
+
+            log.info("Spawning {} subagents", tasks.size());
+            meterRegistry.counter("nanobot.tool.subagents.spawned").increment(tasks.size());
+
+            AgentLoop loop = agentLoop.getObject();
+            AtomicLong budget = ToolContext.turnScoped(ctx, TURN_BUDGET, () -> new AtomicLong(config.getTokenBudget()));
+            long before = Math.max(budget.get(), 0);
+            if (before == 0) {
+                throw new IllegalStateException("Subagent token budget for this turn is exhausted");
+            }
+
+            return Flux.fromIterable(tasks)
+                    .flatMapSequential(task -> agentPools.submitSubagent(
+                            loop.runSubagent(parent, task, config.getMaxIterations(), budget, List.of(NAME))))
+                    .collectList()
+                    .map(results -> {
+                        long used = before - Math.max(budget.get(), 0);
+                        meterRegistry.counter("nanobot.tool.subagents.tokens").increment(used);
+                        log.info("{} subagents finished, ~{} tokens used, ~{} left for this turn",
+                                tasks.size(), used, Math.max(budget.get(), 0));
+                        return ToolResult.success(call.getId(), format(tasks, results));
+                    });
+        })
+                .onErrorResume(e -> Mono.just(ToolResult.error(call.getId(), e)));
+    }
+
+    /**
+     * 解析子任务列表（数组参数无法通过 ToolCall.getArgument 读取）
+     */
+    private List<String> parseTasks(String arguments) {
+        List<String> tasks = new ArrayList<>();
+        try {
+            JsonNode node = objectMapper.readTree(arguments == null ? "{}" : arguments).path("tasks");
+            for (JsonNode task : node) {
+                if (!task.asText().isBlank()) {
+                    tasks.add(task.asText());
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid tasks argument: " + e.getMessage(), e);
+        }
+        return tasks;
+    }
+
+    /**
+     * 汇总子任务结果，单个结果超长时截断
+     */
+    private String format(List<String> tasks, List<String> results) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tasks.size(); i++) {
+            String result = results.get(i);
+            if (result.length() > config.getMaxResultChars()) {
+                result = result.substring(0, config.getMaxResultChars()) + "...(已截断)";
+            }
+            sb.append("### 子任务 ").append(i + 1).append(": ").append(tasks.get(i)).append('\n')
+                    .append(result).append("\n\n");
+        }
+        return sb.toString().trim();
+    }
+}
@@ -4,7 +4,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.nanobot.config.ToolsConfig;
 import org.nanobot.model.ToolCall;
 import org.nanobot.model.ToolResult;
+import org.nanobot.runtime.BlockingSchedulers;
 import org.nanobot.tool.Tool;
+import org.nanobot.tool.ToolContext;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
@@ -25,9 +27,11 @@ import java.nio.file.StandardOpenOption;
 public class WriteFileTool implements Tool {
 
     private final ToolsConfig toolsConfig;
+    private final BlockingSchedulers blockingSchedulers;
 
-    public WriteFileTool(ToolsConfig toolsConfig) {
+    public WriteFileTool(ToolsConfig toolsConfig, BlockingSchedulers blockingSchedulers) {
         this.toolsConfig = toolsConfig;
+        this.blockingSchedulers = blockingSchedulers;
     }
 
     @Override
@@ -62,36 +66,40 @@ public class WriteFileTool implements Tool {
 
     @Override
     public Mono<ToolResult> execute(ToolCall call) {
-        return Mono.fromCallable(() -> {
-            String path = call.getArgument("path");
-            String content = call.getArgument("content");
+        return Mono.deferContextual(ctx -> {
+            String workspace = ToolContext.workspace(ctx, toolsConfig.getWorkspace());
+            return Mono.fromCallable(() -> {
+                String path = call.getArgument("path");
+                String content = call.getArgument("content");
 
-            log.info("Writing file: {}", path);
+                log.info("Writing file: {}", path);
 
-            // 工作区限制检查
-            if (toolsConfig.isRestrictToWorkspace()) {
-                validatePath(path);
-            }
+                // 工作区限制检查
+                if (toolsConfig.isRestrictToWorkspace()) {
+                    validatePath(workspace, path);
+                }
 
-            File file = resolveFile(path);
+                File file = resolveFile(workspace, path);
 
-            // 创建父目录
-            File parentDir = file.getParentFile();
-            if (parentDir != null && !parentDir.exists()) {
-                parentDir.mkdirs();
-            }
+                // 创建父目录
+                File parentDir = file.getParentFile();
+                if (parentDir != null && !parentDir.exists()) {
+                    parentDir.mkdirs();
+                }
 
-            // 写入文件
-            Files.writeString(file.toPath(), content, StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                // 写入文件
+                Files.writeString(file.toPath(), content, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
 
-            return ToolResult.success(call.getId(), "文件已写入: " + path);
+                return ToolResult.success(call.getId(), "文件已写入: " + path);
+            })
+                    .subscribeOn(blockingSchedulers.tool());
         })
                 .onErrorResume(e -> Mono.just(ToolResult.error(call.getId(), e)));
     }
 
-    private void validatePath(String userPath) {
-        Path workspace = Paths.get(toolsConfig.getWorkspace()).toAbsolutePath().normalize();
+    private void validatePath(String workspacePath, String userPath) {
+        Path workspace = Paths.get(workspacePath).toAbsolutePath().normalize();
         Path target = workspace.resolve(userPath).toAbsolutePath().normalize();
 
         if (!target.startsWith(workspace)) {
@@ -99,8 +107,8 @@ public class WriteFileTool implements Tool {
         }
     }
 
-    private File resolveFile(String path) {
-        File workspace = new File(toolsConfig.getWorkspace());
+    private File resolveFile(String workspacePath, String path) {
+        File workspace = new File(workspacePath);
         File file = new File(path);
         if (file.isAbsolute()) {
             // 绝对路径 (支持 Windows 驱动器路径和 Unix 风格路径)
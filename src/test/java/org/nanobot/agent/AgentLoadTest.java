@@ -0,0 +1,123 @@
+package org.nanobot.agent;
+
+import org.junit.jupiter.api.Test;
+import org.nanobot.model.Message;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.runtime.BlockingSchedulers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * 负载测试：数千个会话同时发起轮次，模型调用以阻塞方式模拟延迟，
+ * 无论阻塞任务排在有界调度器上还是运行在虚拟线程上，平台线程数都不随会话数增长。
+ * 两种线程模式分别由 {@link PlatformThreadAgentLoadTest} 和 {@link VirtualThreadAgentLoadTest} 运行
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.ai.zhipuai.api-key=test",
+        "nanobot.agents.default-agent.max-concurrency=" + AgentLoadTest.SESSIONS,
+        "nanobot.agents.default-agent.max-queued=" + AgentLoadTest.SESSIONS,
+        "nanobot.runtime.llm.thread-cap=" + AgentLoadTest.LLM_THREADS,
+        "nanobot.runtime.disk.thread-cap=" + AgentLoadTest.DISK_THREADS,
+        "nanobot.runtime.http.warmup=false",
+        "nanobot.batch.resume-on-startup=false"
+})
+abstract class AgentLoadTest {
+
+    static final int SESSIONS = 2000;
+    static final int LLM_THREADS = 16;
+    static final int DISK_THREADS = 8;
+
+    private static final Duration PROVIDER_LATENCY = Duration.ofMillis(100);
+
+    /**
+     * 调度器以外的线程余量（Reactor parallel、计时器、日志、虚拟线程的载体线程等）
+     */
+    static final int THREAD_SLACK = Runtime.getRuntime().availableProcessors() + 32;
+
+    private static final Path WORKSPACE = createWorkspace();
+
+    @DynamicPropertySource
+    static void workspace(DynamicPropertyRegistry registry) {
+        registry.add("nanobot.agents.default-agent.workspace", WORKSPACE::toString);
+        registry.add("nanobot.tools.workspace", WORKSPACE::toString);
+    }
+
+    @MockBean(name = "chatProvider")
+    private ChatProvider chatProvider;
+
+    @Autowired
+    private AgentLoop agentLoop;
+
+    @Autowired
+    protected BlockingSchedulers blockingSchedulers;
+
+    /**
+     * 服务全部会话期间允许新增的平台线程数
+     */
+    protected abstract int maxNewThreads();
+
+    @Test
+    void thousandsOfConcurrentSessionsDoNotExhaustThreads() {
+        // 模拟同步 HTTP 调用的模型：占用 llm 调度器线程直到响应返回
+        when(chatProvider.stream(any(), any(), any())).thenAnswer(invocation -> Mono.fromCallable(() -> {
+                    Thread.sleep(PROVIDER_LATENCY.toMillis());
+                    return ChatChunk.text("ok");
+                })
+                .subscribeOn(blockingSchedulers.llm())
+                .flux());
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        List<String> replies = Flux.range(0, SESSIONS)
+                .flatMap(i -> agentLoop.process(message(i)), SESSIONS)
+                .collectList()
+                .block(Duration.ofMinutes(2));
+
+        assertThat(replies).hasSize(SESSIONS).allMatch("ok"::equals);
+        assertThat(threads.getPeakThreadCount() - baseline)
+                .as("threads started while serving %d sessions", SESSIONS)
+                .isLessThanOrEqualTo(maxNewThreads());
+    }
+
+    private static Message message(int i) {
+        return Message.builder()
+                .id("load-" + i)
+                .channelId("load")
+                .channelType("api")
+                .userId("user-" + i)
+                .content("hello")
+                .type(Message.MessageType.TEXT)
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    private static Path createWorkspace() {
+        try {
+            return Files.createTempDirectory("nanobot-load");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
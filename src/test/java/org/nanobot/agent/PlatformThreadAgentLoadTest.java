@@ -0,0 +1,23 @@
+package org.nanobot.agent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 平台线程模式：阻塞任务排在有界弹性调度器上，新增线程不超过调度器容量
+ */
+@TestPropertySource(properties = "nanobot.runtime.thread-mode=platform")
+class PlatformThreadAgentLoadTest extends AgentLoadTest {
+
+    @BeforeEach
+    void checkMode() {
+        assertThat(blockingSchedulers.isVirtual()).isFalse();
+    }
+
+    @Override
+    protected int maxNewThreads() {
+        return LLM_THREADS + DISK_THREADS + THREAD_SLACK;
+    }
+}
@@ -0,0 +1,26 @@
+package org.nanobot.agent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 虚拟线程模式（Java 21+）：每个阻塞任务一个虚拟线程，平台线程只有载体线程，不随会话数和调度器容量增长
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@TestPropertySource(properties = "nanobot.runtime.thread-mode=virtual")
+class VirtualThreadAgentLoadTest extends AgentLoadTest {
+
+    @BeforeEach
+    void checkMode() {
+        assertThat(blockingSchedulers.isVirtual()).isTrue();
+    }
+
+    @Override
+    protected int maxNewThreads() {
+        return THREAD_SLACK;
+    }
+}
@@ -0,0 +1,108 @@
+package org.nanobot.runtime;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.nanobot.agent.AgentLoop;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.model.Message;
+import org.nanobot.provider.ChatChunk;
+import org.nanobot.provider.ChatChunk.ToolCallDelta;
+import org.nanobot.provider.ChatProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * 阻塞调用检测：mvn test -Pblockhound 时以 fail 模式安装 BlockHound，
+ * 模型响应在 parallel（非阻塞）线程上到达，驱动一轮包含文件读写和命令执行的完整 AgentLoop，
+ * 之后的检查点、会话历史和工具调用都不应在非阻塞线程上阻塞
+ */
+@EnabledIfSystemProperty(named = "nanobot.runtime.block-hound", matches = "fail")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.ai.zhipuai.api-key=test",
+        "nanobot.runtime.http.warmup=false",
+        "nanobot.batch.resume-on-startup=false"
+})
+class BlockingCallsTest {
+
+    private static final Path WORKSPACE = createWorkspace();
+
+    @DynamicPropertySource
+    static void workspace(DynamicPropertyRegistry registry) {
+        registry.add("nanobot.agents.default-agent.workspace", WORKSPACE::toString);
+        registry.add("nanobot.tools.workspace", WORKSPACE::toString);
+    }
+
+    @MockBean(name = "chatProvider")
+    private ChatProvider chatProvider;
+
+    @Autowired
+    private AgentLoop agentLoop;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void agentTurnWithFileAndExecToolsDoesNotBlock() {
+        // 首次调用请求三个工具，工具结果返回后给出最终回答；数据块经 delayElements 在 parallel 线程上发出
+        when(chatProvider.stream(any(), any(), any())).thenAnswer(invocation -> {
+            List<ChatMessage> messages = invocation.getArgument(0);
+            ChatMessage last = messages.get(messages.size() - 1);
+            ChatChunk chunk = last.getRole() == ChatMessage.Role.TOOL
+                    ? ChatChunk.text("done")
+                    : new ChatChunk(null, List.of(
+                            new ToolCallDelta(0, "call-write", "write_file", "{\"path\":\"notes.txt\",\"content\":\"hello\"}"),
+                            new ToolCallDelta(1, "call-read", "read_file", "{\"path\":\"notes.txt\"}"),
+                            new ToolCallDelta(2, "call-exec", "exec", "{\"command\":\"echo ok\"}")),
+                    "tool_calls", null);
+            return Flux.just(chunk).delayElements(Duration.ofMillis(5));
+        });
+
+        Message message = Message.builder()
+                .id("blocking-check")
+                .channelId("test")
+                .channelType("api")
+                .userId("blockhound")
+                .content("write notes.txt, read it back and run echo")
+                .type(Message.MessageType.TEXT)
+                .timestamp(Instant.now())
+                .build();
+
+        StepVerifier.create(agentLoop.process(message))
+                .expectNext("done")
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+
+        assertThat(WORKSPACE.resolve("notes.txt")).hasContent("hello");
+        double blockingCalls = meterRegistry.find("nanobot.runtime.blocking.calls").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+        assertThat(blockingCalls).as("blocking calls on non-blocking threads").isZero();
+    }
+
+    private static Path createWorkspace() {
+        try {
+            return Files.createTempDirectory("nanobot-blockhound");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
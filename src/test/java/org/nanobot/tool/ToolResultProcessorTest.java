@@ -0,0 +1,100 @@
+package org.nanobot.tool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nanobot.config.RuntimeConfig;
+import org.nanobot.config.ToolsConfig;
+import org.nanobot.model.ToolCall;
+import org.nanobot.model.ToolResult;
+import org.nanobot.runtime.BlockingSchedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 超长输出保存目录的清理：保留时长和总大小上限，不删除其他调用正在写入的临时文件
+ */
+class ToolResultProcessorTest {
+
+    private static final int KB = 1024;
+
+    @TempDir
+    Path workspace;
+
+    private Path spillDir;
+    private BlockingSchedulers blockingSchedulers;
+    private ToolResultProcessor processor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ToolsConfig toolsConfig = new ToolsConfig();
+        toolsConfig.setWorkspace(workspace.toString());
+        toolsConfig.getOutput().setSpillRetention(Duration.ofDays(7));
+        toolsConfig.getOutput().setSpillMaxMb(1);
+        blockingSchedulers = new BlockingSchedulers(new RuntimeConfig(), new SimpleMeterRegistry());
+        processor = new ToolResultProcessor(toolsConfig, blockingSchedulers, new SimpleMeterRegistry());
+        spillDir = Files.createDirectories(workspace.resolve(toolsConfig.getOutput().getSpillDir()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        blockingSchedulers.dispose();
+    }
+
+    @Test
+    void filesOlderThanRetentionArePruned() throws IOException {
+        Path expired = spillFile("expired.txt", 4 * KB, Duration.ofDays(8));
+        Path recent = spillFile("recent.txt", 4 * KB, Duration.ofDays(1));
+        Path abandoned = spillFile("abandoned.txt.tmp", 4 * KB, Duration.ofDays(8));
+
+        spill("age");
+
+        assertThat(expired).doesNotExist();
+        assertThat(abandoned).doesNotExist();
+        assertThat(recent).exists();
+    }
+
+    @Test
+    void oldestFilesArePrunedOverSizeCapButTempFilesAreKept() throws IOException {
+        Path oldest = spillFile("oldest.txt", 400 * KB, Duration.ofMinutes(2));
+        Path older = spillFile("older.txt", 400 * KB, Duration.ofMinutes(1));
+        // 另一次保存尚未移动到位的临时文件，比所有文件都早且足以超出上限
+        Path writing = spillFile("writing.txt.tmp", 400 * KB, Duration.ofMinutes(3));
+
+        spill("size");
+
+        assertThat(oldest).doesNotExist();
+        assertThat(older).exists();
+        assertThat(writing).exists();
+        try (var files = Files.list(spillDir)) {
+            assertThat(files.filter(path -> path.toString().endsWith(".txt")).count()).isEqualTo(2);
+        }
+    }
+
+    /**
+     * 保存一次约 400 KB 的输出，触发清理
+     */
+    private void spill(String seed) {
+        String content = (seed + " line of tool output\n").repeat(400 * KB / (seed.length() + 21));
+        ToolCall call = ToolCall.builder().id("call-" + seed).type("function").functionName("exec").build();
+        ToolResult result = processor.process(call, ToolResult.success(call.getId(), content))
+                .block(Duration.ofSeconds(10));
+        assertThat(result).isNotNull();
+        assertThat(result.getContent()).contains("完整内容已保存到");
+    }
+
+    private Path spillFile(String name, int size, Duration age) throws IOException {
+        Path file = Files.write(spillDir.resolve(name), new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+        return file;
+    }
+}
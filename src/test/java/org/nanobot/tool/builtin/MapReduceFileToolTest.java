@@ -0,0 +1,107 @@
+package org.nanobot.tool.builtin;
+
+import org.junit.jupiter.api.Test;
+import org.nanobot.model.ChatMessage;
+import org.nanobot.model.ToolCall;
+import org.nanobot.model.ToolResult;
+import org.nanobot.provider.ChatProvider;
+import org.nanobot.provider.ChatProvider.ChatResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * 大文件 Map-Reduce：文件超过 chunkBytes * maxChunks 时放大每段字节数，仍然完成 map 和 reduce
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.ai.zhipuai.api-key=test",
+        "nanobot.runtime.http.warmup=false",
+        "nanobot.batch.resume-on-startup=false",
+        "nanobot.tools.map-reduce.chunk-bytes=" + MapReduceFileToolTest.CHUNK_BYTES,
+        "nanobot.tools.map-reduce.max-chunks=" + MapReduceFileToolTest.MAX_CHUNKS,
+        "nanobot.tools.map-reduce.max-chunk-bytes=16384",
+        "nanobot.tools.map-reduce.reduce-fan-in=2"
+})
+class MapReduceFileToolTest {
+
+    static final int CHUNK_BYTES = 1024;
+    static final int MAX_CHUNKS = 10;
+
+    private static final Pattern FINDING = Pattern.compile("ERROR disk full id=\\d+");
+
+    private static final Path WORKSPACE = createWorkspace();
+
+    @DynamicPropertySource
+    static void workspace(DynamicPropertyRegistry registry) {
+        registry.add("nanobot.agents.default-agent.workspace", WORKSPACE::toString);
+        registry.add("nanobot.tools.workspace", WORKSPACE::toString);
+    }
+
+    @MockBean(name = "chatProvider")
+    private ChatProvider chatProvider;
+
+    @Autowired
+    private MapReduceFileTool tool;
+
+    @Test
+    void fileLargerThanChunkLimitIsMappedAndReduced() throws IOException {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            log.append(i % 300 == 150
+                    ? String.format("2026-01-01T00:00:%02d ERROR disk full id=%d%n", i % 60, i)
+                    : String.format("2026-01-01T00:00:%02d INFO request %d ok%n", i % 60, i));
+        }
+        Files.writeString(WORKSPACE.resolve("app.log"), log);
+        assertThat(Files.size(WORKSPACE.resolve("app.log"))).isGreaterThan((long) CHUNK_BYTES * MAX_CHUNKS);
+
+        // 分段调用返回该段中的错误行，合并调用返回所有局部回答中的错误行
+        AtomicInteger mapCalls = new AtomicInteger();
+        AtomicInteger reduceCalls = new AtomicInteger();
+        when(chatProvider.chat(any(), any(), any())).thenAnswer(invocation -> {
+            List<ChatMessage> messages = invocation.getArgument(0);
+            String prompt = messages.get(0).getContent();
+            (prompt.contains("局部回答:") ? reduceCalls : mapCalls).incrementAndGet();
+            List<String> findings = FINDING.matcher(prompt).results().map(MatchResult::group).distinct().toList();
+            return Mono.just(ChatResponse.text(findings.isEmpty() ? "NONE" : String.join("\n", findings)));
+        });
+
+        ToolCall call = ToolCall.builder()
+                .id("call-map-reduce")
+                .type("function")
+                .functionName(tool.getName())
+                .arguments("{\"path\":\"app.log\",\"question\":\"哪些请求失败了？\"}")
+                .build();
+        ToolResult result = tool.execute(call).block(Duration.ofSeconds(30));
+
+        assertThat(result).isNotNull();
+        assertThat(result.isSuccess()).as(result.getError()).isTrue();
+        assertThat(result.getContent()).contains("id=150", "id=450", "id=750");
+        assertThat(mapCalls.get()).isBetween(MAX_CHUNKS / 2, MAX_CHUNKS + 1);
+        assertThat(reduceCalls.get()).isPositive();
+    }
+
+    private static Path createWorkspace() {
+        try {
+            return Files.createTempDirectory("nanobot-map-reduce");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}